@@ -13,6 +13,23 @@ val quarkusPlatformGroupId: String by project
 val quarkusPlatformArtifactId: String by project
 val quarkusPlatformVersion: String by project
 
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+val loadTest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations {
+    "jmhImplementation" { extendsFrom(configurations.implementation.get()) }
+    "jmhRuntimeOnly" { extendsFrom(configurations.runtimeOnly.get()) }
+    "loadTestImplementation" { extendsFrom(configurations.implementation.get()) }
+    "loadTestRuntimeOnly" { extendsFrom(configurations.runtimeOnly.get()) }
+}
+
 dependencies {
     implementation(enforcedPlatform("${quarkusPlatformGroupId}:${quarkusPlatformArtifactId}:${quarkusPlatformVersion}"))
     implementation("io.quarkus:quarkus-reactive-mysql-client")
@@ -25,6 +42,8 @@ dependencies {
     implementation("io.quarkus:quarkus-resteasy-mutiny")
     implementation("io.quarkus:quarkus-resteasy-jackson")
     implementation("io.quarkus:quarkus-arc")
+    implementation("io.quarkus:quarkus-scheduler")
+    implementation("io.quarkus:quarkus-smallrye-metrics")
 
     implementation("com.google.guava:guava:29.0-jre")
     implementation("org.redisson:redisson:3.13.6")
@@ -44,6 +63,10 @@ dependencies {
     testImplementation("org.testcontainers:junit-jupiter")
     testImplementation("mysql:mysql-connector-java:mysql-connector-java")
 
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.26")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.26")
+
+    "loadTestImplementation"("org.hdrhistogram:HdrHistogram:2.1.12")
 }
 
 group = "com.ajanoni"
@@ -58,3 +81,28 @@ tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
     options.compilerArgs.add("-parameters")
 }
+
+// Runs the benchmarks with the GC profiler, e.g. ./gradlew jmh -PjmhIncludes=DateUtilBenchmark
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks reporting throughput and allocation per operation."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = listOfNotNull(project.findProperty("jmhIncludes")?.toString(),
+            "-prof", "gc", "-rf", "json", "-rff", "$buildDir/reports/jmh/results.json")
+    doFirst { file("$buildDir/reports/jmh").mkdirs() }
+}
+
+// Boots the runner jar against the embedded Redis and a local MySQL, then drives open-loop booking scenarios,
+// e.g. ./gradlew loadTest -PloadTest.rate=500 -PloadTest.scenarios=hot-weekend
+tasks.register<JavaExec>("loadTest") {
+    group = "benchmark"
+    description = "Runs the booking load scenarios reporting latency percentiles, conflict and timeout rates."
+    dependsOn("quarkusBuild")
+    classpath = loadTest.runtimeClasspath
+    mainClass.set("com.ajanoni.loadtest.LoadTest")
+    systemProperties(project.properties.filterKeys { it.startsWith("loadTest.") })
+    systemProperty("loadTest.runnerJar", "$buildDir/${project.name}-${project.version}-runner.jar")
+    systemProperty("loadTest.schema", "$projectDir/src/test/resources/mysql_db_init.sql")
+    systemProperty("loadTest.reportDir", "$buildDir/reports/loadtest")
+}
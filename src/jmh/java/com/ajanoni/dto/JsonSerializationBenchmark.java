@@ -0,0 +1,69 @@
+package com.ajanoni.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectWriter writer;
+    private ObjectReader commandReader;
+    private List<AvailableDateResult> availableDates;
+    private ReservationCommand command;
+    private String commandJson;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        writer = objectMapper.writer();
+        commandReader = objectMapper.readerFor(ReservationCommand.class);
+
+        LocalDate startDate = LocalDate.of(2020, 1, 1);
+        availableDates = startDate.datesUntil(startDate.plusMonths(1))
+                .map(AvailableDateResult::new)
+                .collect(Collectors.toList());
+        command = ReservationCommand.builder()
+                .fullName("full name")
+                .email("email@email.com")
+                .arrivalDate(startDate)
+                .departureDate(startDate.plusDays(2))
+                .build();
+        commandJson = writer.writeValueAsString(command);
+    }
+
+    @Benchmark
+    public String writeAvailableDates() throws JsonProcessingException {
+        return writer.writeValueAsString(availableDates);
+    }
+
+    @Benchmark
+    public String writeReservationCommand() throws JsonProcessingException {
+        return writer.writeValueAsString(command);
+    }
+
+    @Benchmark
+    public ReservationCommand readReservationCommand() throws JsonProcessingException {
+        return commandReader.readValue(commandJson);
+    }
+}
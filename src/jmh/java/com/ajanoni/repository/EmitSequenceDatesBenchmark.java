@@ -0,0 +1,80 @@
+package com.ajanoni.repository;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Multi;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.sqlclient.impl.ArrayTuple;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmitSequenceDatesBenchmark {
+
+    private static final List<String> COLUMNS = List.of("arrival_date", "departure_date");
+
+    @Param({"1", "10", "60"})
+    private int rowCount;
+
+    private ReservationsRepositoryImpl repository;
+    private List<Row> rows;
+
+    @Setup
+    public void setup() {
+        repository = new ReservationsRepositoryImpl(null, null, new RepositoryMetrics(new MetricsRegistryImpl()));
+        rows = new ArrayList<>();
+        LocalDate arrivalDate = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(Row.newInstance(new SyntheticRow(arrivalDate, arrivalDate.plusDays(2))));
+            arrivalDate = arrivalDate.plusDays(4);
+        }
+    }
+
+    @Benchmark
+    public void emmitSequenceDates(Blackhole blackhole) {
+        Multi.createFrom().<LocalDate>emitter(emitter -> repository.emmitSequenceDates(rows, emitter))
+                .subscribe().with(blackhole::consume);
+    }
+
+    private static final class SyntheticRow extends ArrayTuple implements io.vertx.sqlclient.Row {
+
+        private SyntheticRow(LocalDate arrivalDate, LocalDate departureDate) {
+            super(COLUMNS.size());
+            addValue(arrivalDate);
+            addValue(departureDate);
+        }
+
+        @Override
+        public String getColumnName(int pos) {
+            return COLUMNS.get(pos);
+        }
+
+        @Override
+        public int getColumnIndex(String name) {
+            return COLUMNS.indexOf(name);
+        }
+
+        @Override
+        public <T> T[] getValues(Class<T> type, int pos) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ajanoni.service.booking;
+
+import com.ajanoni.common.DateRange;
+import com.ajanoni.dto.AvailableDateResult;
+import com.ajanoni.repository.ReservationRepository;
+import com.ajanoni.repository.model.Reservation;
+import com.ajanoni.service.calendar.CalendarChangeFeed;
+import com.ajanoni.service.calendar.CalendarConfiguration;
+import com.ajanoni.service.calendar.OccupancyCalendar;
+import com.ajanoni.service.inventory.InventoryConfiguration;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Availability query served from the repository, the occupancy calendar is never loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingQueryBenchmark {
+
+    private static final String UNIT_ID = "default";
+
+    @Param({"31", "183"})
+    private int days;
+
+    private BookingQueryHandler queryHandler;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setup() {
+        startDate = LocalDate.now();
+        endDate = startDate.plusDays(days - 1L);
+        List<LocalDate> reservedDates = startDate.datesUntil(endDate.plusDays(1), Period.ofDays(3))
+                .collect(Collectors.toList());
+
+        InventoryConfiguration inventoryConfig = new InventoryConfiguration();
+        CalendarConfiguration calendarConfig = new CalendarConfiguration();
+        ReservationRepository repository = new ReservedDatesRepository(reservedDates);
+        OccupancyCalendar occupancyCalendar = new OccupancyCalendar(repository, calendarConfig, inventoryConfig,
+                null);
+        queryHandler = new BookingQueryHandler(repository, new BookingValidationHandler(inventoryConfig),
+                occupancyCalendar, new CalendarChangeFeed(occupancyCalendar, calendarConfig), inventoryConfig,
+                new BookingMetrics(new MetricsRegistryImpl()));
+    }
+
+    @Benchmark
+    public List<AvailableDateResult> getAvailableDates() {
+        return queryHandler.getAvailableDates(UNIT_ID, startDate, endDate).collectItems().asList().await()
+                .indefinitely();
+    }
+
+    private static final class ReservedDatesRepository implements ReservationRepository {
+
+        private final List<LocalDate> reservedDates;
+
+        private ReservedDatesRepository(List<LocalDate> reservedDates) {
+            this.reservedDates = reservedDates;
+        }
+
+        @Override
+        public Multi<LocalDate> getReservedDates(String unitId, LocalDate startDate, LocalDate endDate) {
+            return Multi.createFrom().iterable(reservedDates);
+        }
+
+        @Override
+        public Uni<String> save(Reservation data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<String> save(SqlClient sqlClient, Reservation data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<Reservation> update(Reservation data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<Reservation> update(SqlClient sqlClient, Reservation data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<Boolean> delete(String id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<Reservation> getById(String id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void invalidateCached(String id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Multi<DateRange> getReservedRanges(String unitId, LocalDate startDate, LocalDate endDate) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<Boolean> hasReservationBetween(String unitId, String reservationId, LocalDate startDate,
+                LocalDate endDate) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<Boolean> hasReservationBetween(SqlClient sqlClient, String unitId, String reservationId,
+                LocalDate startDate, LocalDate endDate) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
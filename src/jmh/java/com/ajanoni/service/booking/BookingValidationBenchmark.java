@@ -0,0 +1,47 @@
+package com.ajanoni.service.booking;
+
+import com.ajanoni.service.inventory.InventoryConfiguration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingValidationBenchmark {
+
+    private BookingValidationHandler validationHandler;
+    private LocalDate arrivalDate;
+    private LocalDate departureDate;
+    private LocalDate queryEndDate;
+
+    @Setup
+    public void setup() {
+        validationHandler = new BookingValidationHandler(new InventoryConfiguration());
+        arrivalDate = LocalDate.now().plusDays(1);
+        departureDate = arrivalDate.plusDays(2);
+        queryEndDate = LocalDate.now().plusMonths(1);
+    }
+
+    @Benchmark
+    public Void validateRequest() {
+        return validationHandler.validateRequest(arrivalDate, departureDate).await().indefinitely();
+    }
+
+    @Benchmark
+    public Void validateQuery() {
+        return validationHandler.validateQuery(LocalDate.now(), queryEndDate).await().indefinitely();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ajanoni.loadtest;
+
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.mysqlclient.MySQLPool;
+import io.vertx.mysqlclient.MySQLConnectOptions;
+import io.vertx.sqlclient.PoolOptions;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The booking service started from the runner jar with the embedded Redis, on a freshly created schema so every
+ * scenario starts from an empty calendar.
+ */
+final class BookingApplication implements AutoCloseable {
+
+    private static final String READY_PATH = "/booking/schedule";
+    private static final long READY_POLL_MILLIS = 250;
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final Process process;
+
+    private BookingApplication(Process process) {
+        this.process = process;
+    }
+
+    static BookingApplication start(LoadTestSettings settings, Path log) throws IOException, InterruptedException {
+        resetSchema(settings);
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(List.of(java,
+                "-Dquarkus.http.port=" + settings.getPort(),
+                "-Dquarkus.datasource.reactive.url=" + settings.getDbUrl(),
+                "-Dquarkus.datasource.username=" + settings.getDbUser(),
+                "-Dquarkus.datasource.password=" + settings.getDbPassword(),
+                "-Dlock.type=redis",
+                "-Dlock.redis-embedded.start-server=true",
+                "-jar", settings.getRunnerJar().toString()))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        BookingApplication application = new BookingApplication(process);
+        try {
+            application.awaitReady(settings);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            application.close();
+            throw e;
+        }
+        return application;
+    }
+
+    @Override
+    public void close() {
+        // A graceful stop lets the application shut the embedded Redis down.
+        process.destroy();
+        try {
+            if (!process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitReady(LoadTestSettings settings) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest probe = HttpRequest.newBuilder(settings.getTarget().resolve(READY_PATH))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        long deadline = System.nanoTime() + settings.getBootTimeout().toNanos();
+
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Booking application exited with " + process.exitValue() + ".");
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(READY_POLL_MILLIS);
+        }
+
+        throw new IllegalStateException("Booking application not ready after " + settings.getBootTimeout() + ".");
+    }
+
+    private static void resetSchema(LoadTestSettings settings) throws IOException {
+        MySQLConnectOptions options = MySQLConnectOptions.fromUri(settings.getDbUrl())
+                .setUser(settings.getDbUser())
+                .setPassword(settings.getDbPassword());
+        String schema = Files.readString(settings.getSchema());
+
+        Vertx vertx = Vertx.vertx();
+        MySQLPool pool = MySQLPool.pool(vertx, options, new PoolOptions());
+        try {
+            pool.query(schema).executeAndAwait();
+        } finally {
+            pool.close();
+            vertx.closeAndAwait();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ajanoni.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs each configured scenario against its own booted application, or against {@code loadTest.target} when set,
+ * and prints one line per request kind. Full latency distributions are written to the report directory as
+ * HdrHistogram percentile files.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Path reportDir = Files.createDirectories(settings.getReportDir());
+        PrintStream out = System.out;
+
+        out.printf("Open-loop load at %d req/s, %.0f%% bookings, %ds warmup, %ds measured.%n", settings.getRate(),
+                settings.getWriteRatio() * 100, settings.getWarmup().toSeconds(), settings.getDuration().toSeconds());
+
+        for (Scenario scenario : settings.getScenarios()) {
+            List<OperationStats> results = run(settings, scenario, reportDir);
+
+            out.println(scenario.getLabel());
+            for (OperationStats stats : results) {
+                stats.report(out, reportDir.resolve(scenario.getLabel() + "-" + stats.getName() + ".hgrm"),
+                        settings.getDuration().toMillis() / 1000.0);
+            }
+        }
+    }
+
+    private static List<OperationStats> run(LoadTestSettings settings, Scenario scenario, Path reportDir)
+            throws IOException, InterruptedException {
+        OpenLoopDriver driver = new OpenLoopDriver(settings);
+        if (!settings.isBootingApplication()) {
+            return driver.run(scenario);
+        }
+
+        try (BookingApplication application = BookingApplication.start(settings,
+                reportDir.resolve(scenario.getLabel() + "-application.log"))) {
+            return driver.run(scenario);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ajanoni.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Load test options read from {@code loadTest.*} system properties, the Gradle task forwards {@code -PloadTest.*}.
+ */
+final class LoadTestSettings {
+
+    private static final String PREFIX = "loadTest.";
+
+    private final URI target;
+    private final Path runnerJar;
+    private final Path schema;
+    private final Path reportDir;
+    private final int port;
+    private final String dbUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final List<Scenario> scenarios;
+    private final int rate;
+    private final double writeRatio;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+    private final Duration bootTimeout;
+
+    private LoadTestSettings() {
+        String targetValue = property("target", null);
+        this.port = Integer.parseInt(property("port", "8089"));
+        this.target = URI.create(targetValue != null ? targetValue : "http://localhost:" + port);
+        this.runnerJar = targetValue != null ? null : Path.of(property("runnerJar", "build/booking-runner.jar"));
+        this.schema = Path.of(property("schema", "src/test/resources/mysql_db_init.sql"));
+        this.reportDir = Path.of(property("reportDir", "build/reports/loadtest"));
+        this.dbUrl = property("dbUrl", "mysql://localhost:3306/booking_loadtest?useAffectedRows=true");
+        this.dbUser = property("dbUser", "booking");
+        this.dbPassword = property("dbPassword", "booking");
+        this.scenarios = Arrays.stream(property("scenarios", "hot-weekend,uniform").split(","))
+                .map(String::trim)
+                .map(Scenario::of)
+                .collect(Collectors.toUnmodifiableList());
+        this.rate = Integer.parseInt(property("rate", "200"));
+        this.writeRatio = Double.parseDouble(property("writeRatio", "0.5"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(property("warmupSeconds", "10")));
+        this.duration = Duration.ofSeconds(Long.parseLong(property("durationSeconds", "60")));
+        this.requestTimeout = Duration.ofMillis(Long.parseLong(property("requestTimeoutMillis", "5000")));
+        this.bootTimeout = Duration.ofSeconds(Long.parseLong(property("bootTimeoutSeconds", "60")));
+
+        if (rate <= 0) {
+            throw new IllegalArgumentException("loadTest.rate must be positive.");
+        }
+        if (writeRatio < 0 || writeRatio > 1) {
+            throw new IllegalArgumentException("loadTest.writeRatio must be between 0 and 1.");
+        }
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+
+    /**
+     * The application is booted by the harness unless {@code loadTest.target} points at a running one.
+     */
+    boolean isBootingApplication() {
+        return runnerJar != null;
+    }
+
+    URI getTarget() {
+        return target;
+    }
+
+    Path getRunnerJar() {
+        return runnerJar;
+    }
+
+    Path getSchema() {
+        return schema;
+    }
+
+    Path getReportDir() {
+        return reportDir;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String getDbUrl() {
+        return dbUrl;
+    }
+
+    String getDbUser() {
+        return dbUser;
+    }
+
+    String getDbPassword() {
+        return dbPassword;
+    }
+
+    List<Scenario> getScenarios() {
+        return scenarios;
+    }
+
+    int getRate() {
+        return rate;
+    }
+
+    double getWriteRatio() {
+        return writeRatio;
+    }
+
+    Duration getWarmup() {
+        return warmup;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    Duration getBootTimeout() {
+        return bootTimeout;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+}
@@ -0,0 +1,109 @@
+package com.ajanoni.loadtest;
+
+import com.ajanoni.common.DateRange;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests on a fixed schedule whatever the response times are, the way independent clients arrive, instead
+ * of waiting for a response before sending the next request.
+ */
+final class OpenLoopDriver {
+
+    private static final String BOOKING_PATH = "/booking";
+    private static final String SCHEDULE_PATH = "/booking/schedule";
+    private static final String JSON = "application/json";
+    private static final int SCHEDULE_DAYS = 14;
+    private static final long DRAIN_POLL_MILLIS = 10;
+
+    private final LoadTestSettings settings;
+    private final HttpClient client;
+
+    OpenLoopDriver(LoadTestSettings settings) {
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(settings.getRequestTimeout())
+                .build();
+    }
+
+    List<OperationStats> run(Scenario scenario) throws InterruptedException {
+        OperationStats bookings = new OperationStats("book");
+        OperationStats schedules = new OperationStats("schedule");
+        SplittableRandom random = new SplittableRandom();
+        LocalDate today = LocalDate.now();
+        AtomicLong inFlight = new AtomicLong();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + settings.getWarmup().toNanos();
+        long endNanos = measureFromNanos + settings.getDuration().toNanos();
+
+        for (long sequence = 0; ; sequence++) {
+            long intendedNanos = startNanos + sequence * intervalNanos;
+            if (intendedNanos >= endNanos) {
+                break;
+            }
+            parkUntil(intendedNanos);
+
+            DateRange stay = scenario.nextStay(today, random);
+            boolean booking = random.nextDouble() < settings.getWriteRatio();
+            HttpRequest request = booking ? bookingRequest(stay, sequence) : scheduleRequest(stay);
+            OperationStats stats = booking ? bookings : schedules;
+            boolean measured = intendedNanos >= measureFromNanos;
+
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (measured) {
+                            stats.record(System.nanoTime() - intendedNanos, response, failure);
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        awaitInFlight(inFlight);
+        return List.of(bookings, schedules);
+    }
+
+    private HttpRequest bookingRequest(DateRange stay, long sequence) {
+        String body = String.format("{\"fullName\":\"Load Test %1$d\",\"email\":\"load-%1$d@test.com\","
+                + "\"arrivalDate\":\"%2$s\",\"departureDate\":\"%3$s\"}", sequence, stay.startDate(), stay.endDate());
+        return HttpRequest.newBuilder(settings.getTarget().resolve(BOOKING_PATH))
+                .timeout(settings.getRequestTimeout())
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest scheduleRequest(DateRange stay) {
+        URI uri = settings.getTarget().resolve(SCHEDULE_PATH + "?startDate=" + stay.startDate()
+                + "&endDate=" + stay.startDate().plusDays(SCHEDULE_DAYS - 1L));
+        return HttpRequest.newBuilder(uri)
+                .timeout(settings.getRequestTimeout())
+                .header("Accept", JSON)
+                .GET()
+                .build();
+    }
+
+    private void awaitInFlight(AtomicLong inFlight) throws InterruptedException {
+        long deadline = System.nanoTime() + settings.getRequestTimeout().toNanos() * 2;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(DRAIN_POLL_MILLIS);
+        }
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        for (long remaining = deadlineNanos - System.nanoTime(); remaining > 0;
+                remaining = deadlineNanos - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
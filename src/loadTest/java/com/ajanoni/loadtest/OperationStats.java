@@ -0,0 +1,85 @@
+package com.ajanoni.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency and outcomes of one kind of request. Latency is taken from the intended send time so a stalled server is
+ * not hidden by requests that were sent late.
+ */
+final class OperationStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final int STATUS_CONFLICT = 409;
+
+    private final String name;
+    private final Recorder latency = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    void record(long latencyNanos, HttpResponse<?> response, Throwable failure) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            (cause instanceof HttpTimeoutException ? timeouts : errors).increment();
+        } else if (response.statusCode() / 100 == 2) {
+            succeeded.increment();
+        } else if (response.statusCode() == STATUS_CONFLICT) {
+            conflicts.increment();
+        } else {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Prints the summary line and writes the full percentile distribution, in milliseconds, next to the report.
+     */
+    void report(PrintStream out, Path histogramFile, double measuredSeconds) throws IOException {
+        Histogram histogram = latency.getIntervalHistogram();
+        long total = histogram.getTotalCount();
+
+        out.printf("  %-9s %8d req %9.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  max %8.2f ms"
+                        + "  ok %5.1f%%  conflict %5.1f%%  timeout %5.1f%%  error %5.1f%%%n",
+                name, total, total / measuredSeconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                percent(succeeded.sum(), total), percent(conflicts.sum(), total),
+                percent(timeouts.sum(), total), percent(errors.sum(), total));
+
+        try (PrintStream file = new PrintStream(Files.newOutputStream(histogramFile))) {
+            histogram.outputPercentileDistribution(file, MICROS_PER_MILLI);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : count * 100.0 / total;
+    }
+}
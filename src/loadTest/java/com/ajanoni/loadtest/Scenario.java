@@ -0,0 +1,61 @@
+package com.ajanoni.loadtest;
+
+import com.ajanoni.common.DateRange;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Where clients try to book. Stays respect the booking rules, from tomorrow up to one month ahead and at most three
+ * days, so rejections are conflicts rather than validation errors.
+ */
+enum Scenario {
+
+    /**
+     * Every client fights over the same Friday to Sunday stay.
+     */
+    HOT_WEEKEND("hot-weekend") {
+        @Override
+        DateRange nextStay(LocalDate today, SplittableRandom random) {
+            LocalDate friday = today.plusDays(1).with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY));
+            return new DateRange(friday, friday.plusDays(2));
+        }
+    },
+
+    /**
+     * Clients spread uniformly over the bookable month with one to three day stays.
+     */
+    UNIFORM("uniform") {
+        @Override
+        DateRange nextStay(LocalDate today, SplittableRandom random) {
+            LocalDate firstArrival = today.plusDays(1);
+            long arrivals = ChronoUnit.DAYS.between(firstArrival, today.plusMonths(1)) - MAX_EXTRA_DAYS + 1;
+            LocalDate arrival = firstArrival.plusDays(random.nextLong(arrivals));
+            return new DateRange(arrival, arrival.plusDays(random.nextInt(MAX_EXTRA_DAYS + 1)));
+        }
+    };
+
+    private static final int MAX_EXTRA_DAYS = 2;
+
+    private final String label;
+
+    Scenario(String label) {
+        this.label = label;
+    }
+
+    abstract DateRange nextStay(LocalDate today, SplittableRandom random);
+
+    String getLabel() {
+        return label;
+    }
+
+    static Scenario of(String label) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.label.equals(label))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown load test scenario " + label + "."));
+    }
+}
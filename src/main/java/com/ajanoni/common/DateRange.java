@@ -0,0 +1,14 @@
+package com.ajanoni.common;
+
+import java.time.LocalDate;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+@Value
+@Accessors(fluent = true)
+public class DateRange {
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+}
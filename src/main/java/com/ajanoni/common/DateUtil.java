@@ -1,6 +1,8 @@
 package com.ajanoni.common;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -12,4 +14,58 @@ public final class DateUtil {
     public static List<LocalDate> getContinuousDates(LocalDate startDate, LocalDate endDate) {
         return startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toUnmodifiableList());
     }
+
+    public static List<DateRange> getUncoveredRanges(LocalDate startDate, LocalDate endDate,
+            List<DateRange> coveredRanges) {
+        List<DateRange> sortedRanges = new ArrayList<>(coveredRanges);
+        sortedRanges.sort(Comparator.comparing(DateRange::startDate));
+
+        List<DateRange> uncoveredRanges = new ArrayList<>();
+        LocalDate nextUncovered = startDate;
+        for (DateRange range : sortedRanges) {
+            if (range.startDate().isAfter(nextUncovered)) {
+                uncoveredRanges.add(new DateRange(nextUncovered, min(range.startDate().minusDays(1), endDate)));
+            }
+            if (!range.endDate().isBefore(nextUncovered)) {
+                nextUncovered = range.endDate().plusDays(1);
+            }
+            if (nextUncovered.isAfter(endDate)) {
+                return uncoveredRanges;
+            }
+        }
+
+        uncoveredRanges.add(new DateRange(nextUncovered, endDate));
+        return uncoveredRanges;
+    }
+
+    public static List<DateRange> getMergedRanges(List<DateRange> ranges) {
+        List<DateRange> sortedRanges = new ArrayList<>(ranges);
+        sortedRanges.sort(Comparator.comparing(DateRange::startDate));
+
+        List<DateRange> mergedRanges = new ArrayList<>();
+        DateRange current = null;
+        for (DateRange range : sortedRanges) {
+            if (current == null) {
+                current = range;
+            } else if (!range.startDate().isAfter(current.endDate().plusDays(1))) {
+                current = new DateRange(current.startDate(), max(current.endDate(), range.endDate()));
+            } else {
+                mergedRanges.add(current);
+                current = range;
+            }
+        }
+
+        if (current != null) {
+            mergedRanges.add(current);
+        }
+        return mergedRanges;
+    }
+
+    private static LocalDate min(LocalDate date, LocalDate otherDate) {
+        return date.isBefore(otherDate) ? date : otherDate;
+    }
+
+    private static LocalDate max(LocalDate date, LocalDate otherDate) {
+        return date.isAfter(otherDate) ? date : otherDate;
+    }
 }
@@ -0,0 +1,45 @@
+package com.ajanoni.common;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered identifiers in the UUIDv7 layout: 48 bits of epoch milliseconds, then the version, variant and
+ * random bits. New ids sort after older ones, so inserts land at the end of the primary key index.
+ */
+public final class IdGenerator {
+
+    private static final int ID_BYTES = 16;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long RAND_A_MASK = 0x0FFFL;
+    private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+    private static final long RAND_B_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private IdGenerator() {
+    }
+
+    public static String newId() {
+        return newId(System.currentTimeMillis()).toString();
+    }
+
+    static UUID newId(long epochMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (epochMillis << 16) | VERSION_7 | (random.nextLong() & RAND_A_MASK);
+        long leastSigBits = VARIANT_RFC_4122 | (random.nextLong() & RAND_B_MASK);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static byte[] toBytes(String id) {
+        UUID uuid = UUID.fromString(id);
+        return ByteBuffer.allocate(ID_BYTES)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
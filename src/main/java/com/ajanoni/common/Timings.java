@@ -0,0 +1,35 @@
+package com.ajanoni.common;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.metrics.Timer;
+
+/**
+ * Records the time from subscription to termination of a pipeline. Only the start time and the termination callback
+ * are created per call, timers are looked up once by their owners.
+ */
+public final class Timings {
+
+    private Timings() {
+    }
+
+    public static <T> Uni<T> timed(Timer timer, Supplier<Uni<T>> operation) {
+        return Uni.createFrom().deferred(() -> {
+            long startNanos = System.nanoTime();
+            return operation.get().onTermination().invoke(() -> record(timer, startNanos));
+        });
+    }
+
+    public static <T> Multi<T> timedMulti(Timer timer, Supplier<Multi<T>> operation) {
+        return Multi.createFrom().deferred(() -> {
+            long startNanos = System.nanoTime();
+            return operation.get().onTermination().invoke(() -> record(timer, startNanos));
+        });
+    }
+
+    public static void record(Timer timer, long startNanos) {
+        timer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
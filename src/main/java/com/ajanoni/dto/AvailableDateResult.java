@@ -2,21 +2,35 @@ package com.ajanoni.dto;
 
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDate;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 @RegisterForReflection
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Schema(name = "AvailableResult", description = "Available days for reservation")
 public class AvailableDateResult {
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     private final LocalDate date;
 
+    @Schema(description = "Units free on the date, only present when no unit is selected and there are several.")
+    private final Integer freeUnits;
+
     public AvailableDateResult(LocalDate date) {
+        this(date, null);
+    }
+
+    public AvailableDateResult(LocalDate date, Integer freeUnits) {
         this.date = date;
+        this.freeUnits = freeUnits;
     }
 
     public LocalDate getDate() {
         return date;
     }
+
+    public Integer getFreeUnits() {
+        return freeUnits;
+    }
 }
@@ -0,0 +1,43 @@
+package com.ajanoni.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@RegisterForReflection
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "HeldLockResult", description = "Lock name currently held")
+public class HeldLockResult {
+
+    private final String name;
+    private final long leaseRemainingMillis;
+
+    @Schema(description = "Time held, only present when this instance is the owner.")
+    private final Long heldMillis;
+
+    @Schema(description = "Fencing token of the owner, only present when this instance is the owner.")
+    private final Long fence;
+
+    public HeldLockResult(String name, long leaseRemainingMillis, Long heldMillis, Long fence) {
+        this.name = name;
+        this.leaseRemainingMillis = leaseRemainingMillis;
+        this.heldMillis = heldMillis;
+        this.fence = fence;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLeaseRemainingMillis() {
+        return leaseRemainingMillis;
+    }
+
+    public Long getHeldMillis() {
+        return heldMillis;
+    }
+
+    public Long getFence() {
+        return fence;
+    }
+}
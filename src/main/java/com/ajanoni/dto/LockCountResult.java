@@ -0,0 +1,25 @@
+package com.ajanoni.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@RegisterForReflection
+@Schema(name = "LockCountResult", description = "Lock name and how often it was counted within the window")
+public class LockCountResult {
+
+    private final String name;
+    private final long count;
+
+    public LockCountResult(String name, long count) {
+        this.name = name;
+        this.count = count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ajanoni.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.util.List;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@RegisterForReflection
+@Schema(name = "LockDiagnosticsResult", description = "Held lock names and the most contended ones. Timeouts and "
+        + "contention are counted by this instance over the last windowSeconds.")
+public class LockDiagnosticsResult {
+
+    private final long windowSeconds;
+    private final List<HeldLockResult> held;
+
+    @Schema(description = "Names that made acquires time out, most first.")
+    private final List<LockCountResult> timeouts;
+
+    @Schema(description = "Names most often found held by another request when acquiring, most first.")
+    private final List<LockCountResult> hottest;
+
+    public LockDiagnosticsResult(long windowSeconds, List<HeldLockResult> held, List<LockCountResult> timeouts,
+            List<LockCountResult> hottest) {
+        this.windowSeconds = windowSeconds;
+        this.held = held;
+        this.timeouts = timeouts;
+        this.hottest = hottest;
+    }
+
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public List<HeldLockResult> getHeld() {
+        return held;
+    }
+
+    public List<LockCountResult> getTimeouts() {
+        return timeouts;
+    }
+
+    public List<LockCountResult> getHottest() {
+        return hottest;
+    }
+}
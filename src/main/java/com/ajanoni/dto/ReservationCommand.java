@@ -36,14 +36,19 @@ public class ReservationCommand {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     private final LocalDate departureDate;
 
+    @Length(max = 36)
+    @Schema(description = "Unit to book, the default unit when omitted.")
+    private final String unitId;
+
     @JsonCreator
     public ReservationCommand(@JsonProperty("fullName") String fullName, @JsonProperty("email") String email,
             @JsonProperty("arrivalDate") LocalDate arrivalDate,
-            @JsonProperty("departureDate") LocalDate departureDate) {
+            @JsonProperty("departureDate") LocalDate departureDate, @JsonProperty("unitId") String unitId) {
         this.fullName = fullName;
         this.email = email;
         this.arrivalDate = arrivalDate;
         this.departureDate = departureDate;
+        this.unitId = unitId;
     }
 
 }
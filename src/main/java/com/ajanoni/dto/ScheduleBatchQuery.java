@@ -0,0 +1,37 @@
+package com.ajanoni.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import lombok.Builder;
+import lombok.Value;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.hibernate.validator.constraints.Length;
+
+@RegisterForReflection
+@Value
+@Builder
+@Schema(name = "ScheduleBatchQuery", description = "Available days query over several windows")
+public class ScheduleBatchQuery {
+
+    @NotEmpty(message = "Field windows is required.")
+    @Size(max = 31, message = "Maximum of 31 windows allowed.")
+    private final List<@NotNull(message = "Field windows must not contain null.") @Valid ScheduleWindow> windows;
+
+    @Length(max = 36)
+    @Schema(description = "Unit to query, every unit when omitted.")
+    private final String unitId;
+
+    @JsonCreator
+    public ScheduleBatchQuery(@JsonProperty("windows") List<ScheduleWindow> windows,
+            @JsonProperty("unitId") String unitId) {
+        this.windows = windows;
+        this.unitId = unitId;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.ajanoni.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@RegisterForReflection
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "ScheduleChangeResult", description = "Dates booked or released on a unit since the previous change. "
+        + "When reset is true the changes could not be replayed and the schedule must be queried again.")
+public class ScheduleChangeResult {
+
+    private final String id;
+    private final boolean reset;
+    private final String unitId;
+    private final DateRangeResult booked;
+    private final DateRangeResult released;
+
+    public ScheduleChangeResult(String id, boolean reset, String unitId, DateRangeResult booked,
+            DateRangeResult released) {
+        this.id = id;
+        this.reset = reset;
+        this.unitId = unitId;
+        this.booked = booked;
+        this.released = released;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public String getUnitId() {
+        return unitId;
+    }
+
+    public DateRangeResult getBooked() {
+        return booked;
+    }
+
+    public DateRangeResult getReleased() {
+        return released;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ajanoni.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+import javax.validation.constraints.NotNull;
+import lombok.Value;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@RegisterForReflection
+@Value
+@Schema(name = "ScheduleWindow", description = "Days window to query")
+public class ScheduleWindow {
+
+    @NotNull(message = "Field startDate is required.")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate startDate;
+
+    @NotNull(message = "Field endDate is required.")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate endDate;
+
+    @JsonCreator
+    public ScheduleWindow(@JsonProperty("startDate") LocalDate startDate,
+            @JsonProperty("endDate") LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.ajanoni.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDate;
+import java.util.List;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@RegisterForReflection
+@Schema(name = "ScheduleWindowResult", description = "Available days of a queried window")
+public class ScheduleWindowResult {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate startDate;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final LocalDate endDate;
+
+    private final List<AvailableDateResult> dates;
+
+    public ScheduleWindowResult(LocalDate startDate, LocalDate endDate, List<AvailableDateResult> dates) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.dates = dates;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<AvailableDateResult> getDates() {
+        return dates;
+    }
+}
@@ -0,0 +1,10 @@
+package com.ajanoni.exception;
+
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    private static final long serialVersionUID = 2815466031749176209L;
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.ajanoni.idempotency;
+
+import io.quarkus.arc.config.ConfigProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.time.Duration;
+
+@ConfigProperties(prefix = "idempotency")
+@RegisterForReflection
+public class IdempotencyConfiguration {
+
+    public static final String TYPE_REDIS = "redis";
+    public static final String TYPE_MEMORY = "memory";
+
+    private String type = TYPE_REDIS;
+    private Duration ttl = Duration.ofHours(24);
+    private Duration inFlightTimeout = Duration.ofSeconds(30);
+    private long maximumSize = 100_000;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getInFlightTimeout() {
+        return inFlightTimeout;
+    }
+
+    public void setInFlightTimeout(Duration inFlightTimeout) {
+        this.inFlightTimeout = inFlightTimeout;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ajanoni.idempotency;
+
+import io.smallrye.mutiny.Uni;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation once per key and replays its result for later calls with the same key. Calls made while the
+ * first one is running wait for it. Failed operations are not stored, so the key can be used again.
+ * <p>
+ * A key is bound to the fingerprint of the request that first used it, calls with the same key and another
+ * fingerprint fail with {@link com.ajanoni.exception.IdempotencyKeyReuseException}.
+ */
+public interface IdempotencyStore {
+
+    String KEY_REUSED = "The idempotency key was already used with a different request.";
+
+    Uni<String> execute(String key, String fingerprint, Supplier<Uni<String>> operation);
+
+}
@@ -0,0 +1,28 @@
+package com.ajanoni.idempotency;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+
+@Dependent
+@RegisterForReflection
+public class IdempotencyStoreConfiguration {
+
+    private static final String MESSAGE_UNKNOWN_TYPE = "Unknown idempotency store type: ";
+
+    @Produces
+    @ApplicationScoped
+    public IdempotencyStore idempotencyStore(IdempotencyConfiguration idempotencyConfig,
+            Instance<RedisIdempotencyStore> redisStore, Instance<LocalIdempotencyStore> localStore) {
+        switch (idempotencyConfig.getType()) {
+            case IdempotencyConfiguration.TYPE_REDIS:
+                return redisStore.get();
+            case IdempotencyConfiguration.TYPE_MEMORY:
+                return localStore.get();
+            default:
+                throw new IllegalStateException(MESSAGE_UNKNOWN_TYPE + idempotencyConfig.getType());
+        }
+    }
+}
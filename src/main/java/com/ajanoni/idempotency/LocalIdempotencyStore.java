@@ -0,0 +1,75 @@
+package com.ajanoni.idempotency;
+
+import com.ajanoni.exception.IdempotencyKeyReuseException;
+import com.ajanoni.exception.ReservationConflictException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.smallrye.mutiny.Uni;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+
+/**
+ * JVM-local idempotency store for single-instance deployments, bounded by size and by time since the key was first
+ * used.
+ */
+@ApplicationScoped
+@Typed(LocalIdempotencyStore.class)
+public class LocalIdempotencyStore implements IdempotencyStore {
+
+    static final String IN_FLIGHT_TIMEOUT = "A request with the same idempotency key is still in progress.";
+
+    private final Cache<String, Execution> results;
+    private final Duration inFlightTimeout;
+
+    @Inject
+    public LocalIdempotencyStore(IdempotencyConfiguration idempotencyConfig) {
+        this.results = CacheBuilder.newBuilder()
+                .maximumSize(idempotencyConfig.getMaximumSize())
+                .expireAfterWrite(idempotencyConfig.getTtl())
+                .build();
+        this.inFlightTimeout = idempotencyConfig.getInFlightTimeout();
+    }
+
+    @Override
+    public Uni<String> execute(String key, String fingerprint, Supplier<Uni<String>> operation) {
+        return Uni.createFrom().deferred(() -> {
+            Execution execution = new Execution(fingerprint);
+            Execution existing = results.asMap().putIfAbsent(key, execution);
+            if (existing != null) {
+                if (!existing.fingerprint.equals(fingerprint)) {
+                    return Uni.createFrom().failure(new IdempotencyKeyReuseException(KEY_REUSED));
+                }
+
+                return Uni.createFrom().completionStage(existing.result)
+                        .ifNoItem().after(inFlightTimeout)
+                        .failWith(() -> new ReservationConflictException(IN_FLIGHT_TIMEOUT));
+            }
+
+            return Uni.createFrom().deferred(operation)
+                    .onTermination().invoke((id, failure, cancelled) -> {
+                        if (failure == null && !cancelled) {
+                            execution.result.complete(id);
+                            return;
+                        }
+
+                        results.asMap().remove(key, execution);
+                        execution.result.completeExceptionally(cancelled ? new CancellationException() : failure);
+                    });
+        });
+    }
+
+    private static final class Execution {
+
+        private final String fingerprint;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ajanoni.idempotency;
+
+import com.ajanoni.exception.IdempotencyKeyReuseException;
+import com.ajanoni.exception.ReservationConflictException;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+import org.jboss.logging.Logger;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+/**
+ * Idempotency store shared by all instances. The first call claims the key with an in-flight marker and replaces it
+ * with the result when the operation succeeds. Other calls poll the key until the result is there. Both values start
+ * with the request fingerprint, so calls reusing the key for another request are rejected.
+ * <p>
+ * The marker is short-lived and renewed while the operation runs, so it expires soon if the instance dies but never
+ * while the first call is still running, which would let a retry run the operation again.
+ */
+@ApplicationScoped
+@Typed(RedisIdempotencyStore.class)
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger LOG = Logger.getLogger(RedisIdempotencyStore.class);
+
+    static final String KEY_PREFIX = "idempotency:";
+    static final String FINGERPRINT_SEPARATOR = ":";
+
+    static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) "
+                    + "end "
+                    + "return 0";
+
+    private static final Duration INITIAL_BACK_OFF = Duration.ofMillis(10);
+    private static final Duration MAX_BACK_OFF = Duration.ofMillis(200);
+    private static final int RENEWALS_PER_TIMEOUT = 3;
+
+    private final RedissonClient redissonClient;
+    private final long ttlMillis;
+    private final long inFlightTimeoutMillis;
+    private final Duration renewInterval;
+
+    @Inject
+    public RedisIdempotencyStore(RedissonClient redissonClient, IdempotencyConfiguration idempotencyConfig) {
+        this.redissonClient = redissonClient;
+        this.ttlMillis = idempotencyConfig.getTtl().toMillis();
+        this.inFlightTimeoutMillis = idempotencyConfig.getInFlightTimeout().toMillis();
+        this.renewInterval = idempotencyConfig.getInFlightTimeout().dividedBy(RENEWALS_PER_TIMEOUT);
+    }
+
+    @Override
+    public Uni<String> execute(String key, String fingerprint, Supplier<Uni<String>> operation) {
+        RBucket<String> bucket = redissonClient.getBucket(KEY_PREFIX + key, StringCodec.INSTANCE);
+        String inFlight = fingerprint + FINGERPRINT_SEPARATOR;
+
+        return Uni.createFrom()
+                .completionStage(() -> bucket.trySetAsync(inFlight, inFlightTimeoutMillis, TimeUnit.MILLISECONDS))
+                .onItem().transformToUni(claimed -> claimed
+                        ? run(bucket, inFlight, operation)
+                        : await(bucket, inFlight)).onItem()
+                .ifNull().switchTo(() -> execute(key, fingerprint, operation));
+    }
+
+    private Uni<String> run(RBucket<String> bucket, String inFlight, Supplier<Uni<String>> operation) {
+        Cancellable watchdog = Multi.createFrom().ticks().every(renewInterval)
+                .subscribe().with(tick -> renew(bucket, inFlight));
+
+        return Uni.createFrom().deferred(operation)
+                .onTermination().invoke(watchdog::cancel)
+                .onItem().invokeUni(id -> Uni.createFrom()
+                        .completionStage(() -> bucket.setAsync(inFlight + id, ttlMillis, TimeUnit.MILLISECONDS))
+                        .onFailure().recoverWithItem(failure -> {
+                            LOG.warnf(failure, "Unable to store the result of idempotency key %s.", bucket.getName());
+                            return null;
+                        }))
+                .onFailure().recoverWithUni(failure -> Uni.createFrom().completionStage(bucket::deleteAsync)
+                        .onFailure().recoverWithItem(() -> false).onItem()
+                        .transformToUni(deleted -> Uni.createFrom().failure(failure)));
+    }
+
+    private void renew(RBucket<String> bucket, String inFlight) {
+        redissonClient.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, RENEW_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(bucket.getName()), inFlight,
+                String.valueOf(inFlightTimeoutMillis))
+                .onComplete((renewed, failure) -> {
+                    if (failure != null) {
+                        LOG.warnf(failure, "Unable to renew the in-flight marker of %s.", bucket.getName());
+                    }
+                });
+    }
+
+    /**
+     * Polls the key until the first call stores its result. Completes with null when the key is gone because the
+     * first call failed, so this call can claim it.
+     */
+    private Uni<String> await(RBucket<String> bucket, String inFlight) {
+        return Uni.createFrom().completionStage(bucket::getAsync)
+                .onItem().transformToUni(value -> inFlight.equals(value)
+                        ? Uni.createFrom().<String>failure(new InFlightException())
+                        : Uni.createFrom().item(value))
+                .onFailure(InFlightException.class).retry()
+                .withBackOff(INITIAL_BACK_OFF, MAX_BACK_OFF)
+                .expireIn(inFlightTimeoutMillis)
+                .onFailure(failure -> failure instanceof InFlightException || failure instanceof IllegalStateException)
+                .transform(failure -> new ReservationConflictException(LocalIdempotencyStore.IN_FLIGHT_TIMEOUT))
+                .onItem().ifNotNull().transformToUni(value -> value.startsWith(inFlight)
+                        ? Uni.createFrom().item(value.substring(inFlight.length()))
+                        : Uni.createFrom().failure(new IdempotencyKeyReuseException(KEY_REUSED)));
+    }
+
+    private static final class InFlightException extends RuntimeException {
+
+        private static final long serialVersionUID = 4150322386410928851L;
+
+        private InFlightException() {
+            super(null, null, false, false);
+        }
+    }
+}
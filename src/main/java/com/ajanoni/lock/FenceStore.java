@@ -0,0 +1,13 @@
+package com.ajanoni.lock;
+
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Highest fencing token stored by writers. Lock handlers read it before handing out their first token, so tokens
+ * keep growing past stored ones after the counter is lost on a restart.
+ */
+public interface FenceStore {
+
+    Uni<Long> getMaxFence();
+
+}
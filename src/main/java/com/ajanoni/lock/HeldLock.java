@@ -0,0 +1,14 @@
+package com.ajanoni.lock;
+
+import java.time.Duration;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+@Value
+@Accessors(fluent = true)
+public class HeldLock {
+
+    private final String name;
+    private final Duration leaseRemaining;
+
+}
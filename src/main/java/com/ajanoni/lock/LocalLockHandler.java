@@ -0,0 +1,167 @@
+package com.ajanoni.lock;
+
+import com.ajanoni.exception.LockAcquireException;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+
+/**
+ * JVM-local lock handler for single-instance deployments. Each name is leased on its own key, all names are taken
+ * or none, and waiting for a held name is a scheduled retry, never a parked thread. Leases are renewed while the
+ * work runs and fencing tokens come from a counter.
+ */
+@ApplicationScoped
+@Typed(LocalLockHandler.class)
+public class LocalLockHandler implements LockHandler {
+
+    private static final Duration INITIAL_BACK_OFF = Duration.ofMillis(5);
+    private static final Duration MAX_BACK_OFF = Duration.ofMillis(100);
+    private static final String LOCK_ACQUIRE_FAIL = "Unable to get the lock.";
+    private static final int RENEWALS_PER_LEASE = 3;
+
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final LockMetrics lockMetrics;
+    private final LockDiagnostics lockDiagnostics;
+    private final FenceStore fenceStore;
+    private final AtomicLong fences = new AtomicLong();
+    private final Duration acquireWaitTime;
+    private final Duration leaseTime;
+    private final Duration renewInterval;
+
+    private volatile boolean fencesSeeded;
+
+    @Inject
+    public LocalLockHandler(LockConfiguration lockConfig, LockMetrics lockMetrics, LockDiagnostics lockDiagnostics,
+            FenceStore fenceStore) {
+        this.fenceStore = fenceStore;
+        this.lockMetrics = lockMetrics;
+        this.lockDiagnostics = lockDiagnostics;
+        this.acquireWaitTime = lockConfig.getAcquireWaitTime();
+        this.leaseTime = lockConfig.getLeaseTime();
+        this.renewInterval = leaseTime.dividedBy(RENEWALS_PER_LEASE);
+    }
+
+    @Override
+    public <T> Uni<T> executeWithLock(List<String> names, LongFunction<Uni<T>> work) {
+        List<String> sortedNames = names.stream().distinct().sorted().collect(Collectors.toList());
+
+        return seedFences().onItem().transformToUni(seeded -> {
+            long startNanos = System.nanoTime();
+            String[] blockedBy = new String[1];
+            LockAcquireEvent event = LockAcquireEvent.begin(sortedNames);
+            return Uni.createFrom().item(() -> acquire(sortedNames, blockedBy))
+                    .onFailure(LockAcquireException.class).retry()
+                    .withBackOff(INITIAL_BACK_OFF, MAX_BACK_OFF)
+                    .expireIn(acquireWaitTime.toMillis())
+                    .onFailure().transform(failure -> {
+                        lockMetrics.acquireFailed(sortedNames.size());
+                        lockDiagnostics.timedOut(blockedBy[0] != null ? blockedBy[0] : sortedNames.get(0));
+                        LockAcquireEvent.failed(event, failure, blockedBy[0]);
+                        return failure instanceof LockAcquireException
+                                ? failure
+                                : new LockAcquireException(LOCK_ACQUIRE_FAIL);
+                    })
+                    .onItem().transformToUni(lease -> {
+                        lockMetrics.acquired(sortedNames.size(), startNanos);
+                        LockAcquireEvent.acquired(event, lease.fence);
+                        return execute(sortedNames, lease, work);
+                    });
+        });
+    }
+
+    @Override
+    public Uni<List<HeldLock>> getHeldLocks(int limit) {
+        return Uni.createFrom().item(() -> {
+            long now = System.nanoTime();
+            return leases.entrySet().stream()
+                    .filter(entry -> !entry.getValue().isExpired())
+                    .limit(limit)
+                    .map(entry -> new HeldLock(entry.getKey(), Duration.ofNanos(entry.getValue().expiresAt - now)))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private Uni<Void> seedFences() {
+        // The counter starts from zero on every start, tokens stored before then have to stay below it.
+        return Uni.createFrom().deferred(() -> fencesSeeded
+                ? Uni.createFrom().voidItem()
+                : fenceStore.getMaxFence().onItem().invoke(maxFence -> {
+                    fences.accumulateAndGet(maxFence, Math::max);
+                    fencesSeeded = true;
+                }).onItem().ignore().andContinueWithNull());
+    }
+
+    private <T> Uni<T> execute(List<String> names, Lease lease, LongFunction<Uni<T>> work) {
+        long acquiredNanos = System.nanoTime();
+        LockDiagnostics.Holding holding = lockDiagnostics.acquired(names, lease.fence);
+        Cancellable watchdog = Multi.createFrom().ticks().every(renewInterval)
+                .subscribe().with(tick -> lease.renew(System.nanoTime() + leaseTime.toNanos()));
+        try {
+            return work.apply(lease.fence)
+                    .onTermination()
+                    .invoke(() -> {
+                        watchdog.cancel();
+                        release(names, lease);
+                        lockDiagnostics.released(names, holding);
+                        lockMetrics.released(acquiredNanos);
+                    });
+        } catch (RuntimeException e) {
+            watchdog.cancel();
+            release(names, lease);
+            lockDiagnostics.released(names, holding);
+            lockMetrics.released(acquiredNanos);
+            return Uni.createFrom().failure(e);
+        }
+    }
+
+    private Lease acquire(List<String> names, String[] blockedBy) {
+        Lease lease = new Lease(fences.incrementAndGet(), System.nanoTime() + leaseTime.toNanos());
+        List<String> acquired = new ArrayList<>();
+        for (String name : names) {
+            Lease current = leases.compute(name, (key, held) -> held == null || held.isExpired() ? lease : held);
+            if (current != lease) {
+                release(acquired, lease);
+                blockedBy[0] = name;
+                lockDiagnostics.contended(name);
+                throw new LockAcquireException(LOCK_ACQUIRE_FAIL);
+            }
+            acquired.add(name);
+        }
+
+        return lease;
+    }
+
+    private void release(List<String> names, Lease lease) {
+        names.forEach(name -> leases.remove(name, lease));
+    }
+
+    private static final class Lease {
+
+        private final long fence;
+        private volatile long expiresAt;
+
+        private Lease(long fence, long expiresAt) {
+            this.fence = fence;
+            this.expiresAt = expiresAt;
+        }
+
+        private void renew(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ajanoni.lock;
+
+import com.ajanoni.exception.LockAcquireException;
+import java.util.List;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of one lock acquire, its duration is the time spent waiting for the names.
+ */
+@Name("com.ajanoni.booking.LockAcquire")
+@Label("Lock Acquire")
+@Category({"Booking", "Lock"})
+@Description("Acquire of every name of a lock, from the first attempt to holding them all or giving up.")
+@Enabled(false)
+@StackTrace(false)
+final class LockAcquireEvent extends Event {
+
+    static final String ACQUIRED = "acquired";
+    static final String TIMED_OUT = "timed-out";
+    static final String FAILED = "failed";
+
+    private static final EventType TYPE = EventType.getEventType(LockAcquireEvent.class);
+
+    @Label("Names")
+    private String names;
+
+    @Label("Name Count")
+    private int nameCount;
+
+    @Label("Outcome")
+    private String outcome;
+
+    @Label("Blocked By")
+    @Description("Last name found held by another owner.")
+    private String blockedBy;
+
+    @Label("Fence")
+    private long fence;
+
+    static LockAcquireEvent begin(List<String> names) {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        LockAcquireEvent event = new LockAcquireEvent();
+        event.names = String.join(",", names);
+        event.nameCount = names.size();
+        event.begin();
+        return event;
+    }
+
+    static void acquired(LockAcquireEvent event, long fence) {
+        commit(event, ACQUIRED, null, fence);
+    }
+
+    static void failed(LockAcquireEvent event, Throwable failure, String blockedBy) {
+        // Retries that run out of time fail with the last busy attempt as the cause.
+        boolean timedOut = failure instanceof LockAcquireException
+                || failure.getCause() instanceof LockAcquireException;
+        commit(event, timedOut ? TIMED_OUT : FAILED, blockedBy, 0);
+    }
+
+    private static void commit(LockAcquireEvent event, String outcome, String blockedBy, long fence) {
+        if (event == null) {
+            return;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = outcome;
+            event.blockedBy = blockedBy;
+            event.fence = fence;
+            event.commit();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.ajanoni.lock;
 
 import io.quarkus.arc.config.ConfigProperties;
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -9,10 +10,67 @@ import java.util.List;
 @RegisterForReflection
 public class LockConfiguration {
 
+    public static final String TYPE_REDIS = "redis";
+    public static final String TYPE_LOCAL = "local";
+
+    private String type = TYPE_REDIS;
+    private Duration acquireWaitTime = Duration.ofSeconds(3);
+    private Duration leaseTime = Duration.ofSeconds(5);
+    private Duration diagnosticsWindow = Duration.ofMinutes(5);
+    private int diagnosticsMaxNames = 1000;
+    private boolean diagnosticsEndpointEnabled;
     private RedisEmbedded redisEmbedded;
     private List<String> serverList;
     private String master;
 
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Duration getAcquireWaitTime() {
+        return acquireWaitTime;
+    }
+
+    public void setAcquireWaitTime(Duration acquireWaitTime) {
+        this.acquireWaitTime = acquireWaitTime;
+    }
+
+    public Duration getLeaseTime() {
+        return leaseTime;
+    }
+
+    public void setLeaseTime(Duration leaseTime) {
+        this.leaseTime = leaseTime;
+    }
+
+    public Duration getDiagnosticsWindow() {
+        return diagnosticsWindow;
+    }
+
+    public void setDiagnosticsWindow(Duration diagnosticsWindow) {
+        this.diagnosticsWindow = diagnosticsWindow;
+    }
+
+    public boolean isDiagnosticsEndpointEnabled() {
+        return diagnosticsEndpointEnabled;
+    }
+
+    public void setDiagnosticsEndpointEnabled(boolean diagnosticsEndpointEnabled) {
+        this.diagnosticsEndpointEnabled = diagnosticsEndpointEnabled;
+    }
+
+    public int getDiagnosticsMaxNames() {
+        return diagnosticsMaxNames;
+    }
+
+    public void setDiagnosticsMaxNames(int diagnosticsMaxNames) {
+        this.diagnosticsMaxNames = diagnosticsMaxNames;
+    }
+
     public List<String> getServerList() {
         return Collections.unmodifiableList(serverList);
     }
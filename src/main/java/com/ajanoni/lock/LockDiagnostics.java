@@ -0,0 +1,145 @@
+package com.ajanoni.lock;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+
+/**
+ * Names held by this instance and, per name, acquire attempts that found it busy and acquires that timed out waiting
+ * for it over a sliding window. Held names are bounded by the requests in flight and the window by a fixed number of
+ * names per bucket.
+ */
+@ApplicationScoped
+public class LockDiagnostics {
+
+    private static final int WINDOW_BUCKETS = 10;
+
+    private static final Metadata HELD_NAMES = Metadata.builder()
+            .withName("lock.held.names")
+            .withDescription("Lock names currently held by this instance.")
+            .withType(MetricType.GAUGE)
+            .build();
+    private static final Metadata OLDEST_HELD = Metadata.builder()
+            .withName("lock.held.oldest")
+            .withDescription("Time the longest held lock name of this instance has been held.")
+            .withType(MetricType.GAUGE)
+            .withUnit(MetricUnits.MILLISECONDS)
+            .build();
+
+    private final ConcurrentMap<String, Holding> held = new ConcurrentHashMap<>();
+    private final SlidingKeyCounter contended;
+    private final SlidingKeyCounter timeouts;
+    private final Duration window;
+
+    @Inject
+    public LockDiagnostics(LockConfiguration lockConfig, MetricRegistry registry) {
+        this.window = lockConfig.getDiagnosticsWindow();
+        this.contended = new SlidingKeyCounter(window, WINDOW_BUCKETS, lockConfig.getDiagnosticsMaxNames());
+        this.timeouts = new SlidingKeyCounter(window, WINDOW_BUCKETS, lockConfig.getDiagnosticsMaxNames());
+        registry.register(HELD_NAMES, (Gauge<Integer>) held::size);
+        registry.register(OLDEST_HELD, (Gauge<Long>) this::getOldestHeldMillis);
+    }
+
+    Holding acquired(List<String> names, long fence) {
+        Holding holding = new Holding(System.nanoTime(), fence);
+        names.forEach(name -> held.put(name, holding));
+        return holding;
+    }
+
+    void released(List<String> names, Holding holding) {
+        names.forEach(name -> held.remove(name, holding));
+    }
+
+    void contended(String name) {
+        contended.increment(name);
+    }
+
+    void timedOut(String name) {
+        timeouts.increment(name);
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * Names held by this instance with how long they have been held and their fencing token.
+     */
+    public Map<String, HeldName> getHeld() {
+        long now = System.nanoTime();
+        return held.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> new HeldName(
+                        Duration.ofNanos(now - entry.getValue().acquiredNanos), entry.getValue().fence)));
+    }
+
+    public List<NameCount> getTimeouts(int limit) {
+        return top(timeouts.getCounts(), limit);
+    }
+
+    /**
+     * Names whose acquire attempts most often found them held by someone else within the window.
+     */
+    public List<NameCount> getHottest(int limit) {
+        return top(contended.getCounts(), limit);
+    }
+
+    private long getOldestHeldMillis() {
+        long now = System.nanoTime();
+        return held.values().stream()
+                .mapToLong(holding -> TimeUnit.NANOSECONDS.toMillis(now - holding.acquiredNanos))
+                .max()
+                .orElse(0);
+    }
+
+    private static List<NameCount> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new NameCount(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    static final class Holding {
+
+        private final long acquiredNanos;
+        private final long fence;
+
+        private Holding(long acquiredNanos, long fence) {
+            this.acquiredNanos = acquiredNanos;
+            this.fence = fence;
+        }
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class HeldName {
+
+        private final Duration heldFor;
+        private final long fence;
+
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class NameCount {
+
+        private final String name;
+        private final long count;
+
+    }
+}
@@ -2,10 +2,20 @@ package com.ajanoni.lock;
 
 import io.smallrye.mutiny.Uni;
 import java.util.List;
-import java.util.function.Supplier;
+import java.util.function.LongFunction;
 
 public interface LockHandler {
 
-    <T> Uni<T> executeWithLock(List<String> names, Supplier<Uni<T>> supplier);
+    /**
+     * Runs the work while every name is held. The work receives the fencing token of this acquisition, greater than
+     * the token of every earlier one, so writes can reject a holder whose lease was taken over.
+     */
+    <T> Uni<T> executeWithLock(List<String> names, LongFunction<Uni<T>> work);
+
+    /**
+     * Names currently held by any owner, including leases of owners that stopped without releasing them, with the
+     * time left on their lease. At most limit names are returned.
+     */
+    Uni<List<HeldLock>> getHeldLocks(int limit);
 
 }
@@ -0,0 +1,28 @@
+package com.ajanoni.lock;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+
+@Dependent
+@RegisterForReflection
+public class LockHandlerConfiguration {
+
+    private static final String MESSAGE_UNKNOWN_TYPE = "Unknown lock type: ";
+
+    @Produces
+    @ApplicationScoped
+    public LockHandler lockHandler(LockConfiguration lockConfig, Instance<RedissonLockHandler> redissonLockHandler,
+            Instance<LocalLockHandler> localLockHandler) {
+        switch (lockConfig.getType()) {
+            case LockConfiguration.TYPE_REDIS:
+                return redissonLockHandler.get();
+            case LockConfiguration.TYPE_LOCAL:
+                return localLockHandler.get();
+            default:
+                throw new IllegalStateException(MESSAGE_UNKNOWN_TYPE + lockConfig.getType());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ajanoni.lock;
+
+import com.ajanoni.common.Timings;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+
+/**
+ * Lock acquire latency and failures tagged by the number of names taken together, and how long leases are held.
+ * Metrics of each name count are registered on first use and kept in arrays, so recording does not look them up.
+ */
+@ApplicationScoped
+public class LockMetrics {
+
+    private static final int MAX_TAGGED_NAMES = 31;
+    private static final String TAG_NAMES = "names";
+    private static final String TAG_MORE_NAMES = MAX_TAGGED_NAMES + "+";
+
+    private static final Metadata ACQUIRE = Metadata.builder()
+            .withName("lock.acquire")
+            .withDescription("Time to acquire every name of a lock, including waits for held names.")
+            .withType(MetricType.TIMER)
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+    private static final Metadata ACQUIRE_FAILURES = Metadata.builder()
+            .withName("lock.acquire.failures")
+            .withDescription("Locks not acquired within the acquire wait time.")
+            .withType(MetricType.COUNTER)
+            .build();
+    private static final Metadata HELD = Metadata.builder()
+            .withName("lock.held")
+            .withDescription("Time from acquiring a lock to releasing it.")
+            .withType(MetricType.TIMER)
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+
+    private final MetricRegistry registry;
+    private final AtomicReferenceArray<Timer> acquireTimers = new AtomicReferenceArray<>(MAX_TAGGED_NAMES + 1);
+    private final AtomicReferenceArray<Counter> acquireFailures = new AtomicReferenceArray<>(MAX_TAGGED_NAMES + 1);
+    private final Timer heldTimer;
+
+    @Inject
+    public LockMetrics(MetricRegistry registry) {
+        this.registry = registry;
+        this.heldTimer = registry.timer(HELD);
+    }
+
+    public void acquired(int names, long startNanos) {
+        int index = index(names);
+        Timer timer = acquireTimers.get(index);
+        if (timer == null) {
+            timer = registry.timer(ACQUIRE, tag(index));
+            acquireTimers.set(index, timer);
+        }
+
+        Timings.record(timer, startNanos);
+    }
+
+    public void acquireFailed(int names) {
+        int index = index(names);
+        Counter counter = acquireFailures.get(index);
+        if (counter == null) {
+            counter = registry.counter(ACQUIRE_FAILURES, tag(index));
+            acquireFailures.set(index, counter);
+        }
+
+        counter.inc();
+    }
+
+    public void released(long acquiredNanos) {
+        Timings.record(heldTimer, acquiredNanos);
+    }
+
+    private static int index(int names) {
+        return Math.min(names, MAX_TAGGED_NAMES);
+    }
+
+    private static Tag tag(int index) {
+        return new Tag(TAG_NAMES, index < MAX_TAGGED_NAMES ? String.valueOf(index) : TAG_MORE_NAMES);
+    }
+}
@@ -1,80 +1,256 @@
 package com.ajanoni.lock;
 
 import com.ajanoni.exception.LockAcquireException;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.Cancellable;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 import javax.enterprise.context.ApplicationScoped;
-import org.redisson.api.RPermitExpirableSemaphore;
+import javax.enterprise.inject.Typed;
+import org.jboss.logging.Logger;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 
+/**
+ * Takes every name of a request with a single script call, so the whole set is locked or none of it is, in one
+ * round trip whatever the number of names. Each key holds the owner token and expires with the lease. Scripts run
+ * through the async API and waits are scheduled retries, so no thread is held while a lock is busy.
+ * <p>
+ * Leases are short and renewed by a watchdog while the work runs, so names held by a dead instance are free again
+ * after one lease time. The same script increments a fencing counter, its value is handed to the work. When a name
+ * is held the script returns its negative position instead, so contention is counted on the name that blocked.
+ * The counter is lost when Redis restarts, so the script never returns a token at or below the highest one this
+ * instance has seen, starting from the highest stored token.
+ */
 @ApplicationScoped
+@Typed(RedissonLockHandler.class)
 public class RedissonLockHandler implements LockHandler {
 
-    private static final int LEASE_TIME_SECONDS = 60;
-    private static final int ACQUIRE_WAIT_TIME_SECONDS = 3;
+    private static final Logger LOG = Logger.getLogger(RedissonLockHandler.class);
+
+    static final String KEY_PREFIX = "booking-lock:";
+    static final String FENCE_KEY = "booking-lock-fence";
+    static final String ACQUIRE_SCRIPT =
+            "for i = 2, #KEYS do "
+                    + "if redis.call('exists', KEYS[i]) == 1 then return 1 - i end "
+                    + "end "
+                    + "for i = 2, #KEYS do "
+                    + "redis.call('set', KEYS[i], ARGV[1], 'px', ARGV[2]) "
+                    + "end "
+                    + "local fence = redis.call('incr', KEYS[1]) "
+                    + "if fence <= tonumber(ARGV[3]) then "
+                    + "redis.call('set', KEYS[1], ARGV[3]) "
+                    + "fence = redis.call('incr', KEYS[1]) "
+                    + "end "
+                    + "return fence";
+    static final String RENEW_SCRIPT =
+            "local renewed = 0 "
+                    + "for _, key in ipairs(KEYS) do "
+                    + "if redis.call('get', key) == ARGV[1] then "
+                    + "redis.call('pexpire', key, ARGV[2]) "
+                    + "renewed = renewed + 1 "
+                    + "end "
+                    + "end "
+                    + "return renewed";
+    static final String RELEASE_SCRIPT =
+            "local released = 0 "
+                    + "for _, key in ipairs(KEYS) do "
+                    + "if redis.call('get', key) == ARGV[1] then "
+                    + "redis.call('del', key) "
+                    + "released = released + 1 "
+                    + "end "
+                    + "end "
+                    + "return released";
+
+    private static final Duration INITIAL_BACK_OFF = Duration.ofMillis(10);
+    private static final Duration MAX_BACK_OFF = Duration.ofMillis(200);
     private static final String LOCK_ACQUIRE_FAIL = "Unable to get the lock.";
-    private static final String NOT_ACQUIRED = "NOT_ACQUIRED";
+    private static final int RENEWALS_PER_LEASE = 3;
+    private static final int SCAN_BATCH_SIZE = 100;
 
     private final RedissonClient redissonClient;
+    private final LockMetrics lockMetrics;
+    private final LockDiagnostics lockDiagnostics;
+    private final FenceStore fenceStore;
+    private final AtomicLong fenceFloor = new AtomicLong();
+    private final long acquireWaitTimeMillis;
+    private final long leaseTimeMillis;
+    private final Duration renewInterval;
 
-    public RedissonLockHandler(RedissonClient redissonClient) {
+    private volatile boolean fencesSeeded;
+
+    public RedissonLockHandler(RedissonClient redissonClient, LockConfiguration lockConfig, LockMetrics lockMetrics,
+            LockDiagnostics lockDiagnostics, FenceStore fenceStore) {
         this.redissonClient = redissonClient;
+        this.lockMetrics = lockMetrics;
+        this.lockDiagnostics = lockDiagnostics;
+        this.fenceStore = fenceStore;
+        this.acquireWaitTimeMillis = lockConfig.getAcquireWaitTime().toMillis();
+        this.leaseTimeMillis = lockConfig.getLeaseTime().toMillis();
+        this.renewInterval = lockConfig.getLeaseTime().dividedBy(RENEWALS_PER_LEASE);
     }
 
     @Override
-    public <T> Uni<T> executeWithLock(List<String> names, Supplier<Uni<T>> supplier) {
-        return Uni.createFrom().item(() -> execute(names, supplier))
-                .onItem().transformToUni(it -> it)
-                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    public <T> Uni<T> executeWithLock(List<String> names, LongFunction<Uni<T>> work) {
+        List<String> sortedNames = names.stream().distinct().sorted().collect(Collectors.toList());
+        List<Object> keys = sortedNames.stream()
+                .map(name -> KEY_PREFIX + name)
+                .collect(Collectors.toList());
+        String token = UUID.randomUUID().toString();
+
+        return seedFences().onItem().transformToUni(seeded -> {
+            long startNanos = System.nanoTime();
+            String[] blockedBy = new String[1];
+            LockAcquireEvent event = LockAcquireEvent.begin(sortedNames);
+            return acquire(sortedNames, keys, token, blockedBy)
+                    .onFailure(LockAcquireException.class).retry()
+                    .withBackOff(INITIAL_BACK_OFF, MAX_BACK_OFF)
+                    .expireIn(acquireWaitTimeMillis)
+                    .onFailure().transform(failure -> {
+                        lockMetrics.acquireFailed(keys.size());
+                        lockDiagnostics.timedOut(blockedBy[0] != null ? blockedBy[0] : sortedNames.get(0));
+                        LockAcquireEvent.failed(event, failure, blockedBy[0]);
+                        return failure instanceof LockAcquireException
+                                ? failure
+                                : new LockAcquireException(LOCK_ACQUIRE_FAIL);
+                    })
+                    .onItem().transformToUni(fence -> {
+                        fenceFloor.accumulateAndGet(fence, Math::max);
+                        lockMetrics.acquired(keys.size(), startNanos);
+                        LockAcquireEvent.acquired(event, fence);
+                        return execute(sortedNames, keys, token, fence, work);
+                    });
+        });
     }
 
-    private <T> Uni<T> execute(List<String> names, Supplier<Uni<T>> supplier) {
-        final Map<RPermitExpirableSemaphore, String> semaphores = getSemaphores(names, redissonClient);
-        try {
-            boolean notAllLocked = semaphores.values().stream().anyMatch(it -> it.equals(NOT_ACQUIRED));
-            if (notAllLocked) {
-                releaseSemaphores(semaphores);
-                return Uni.createFrom().failure(() -> new LockAcquireException(LOCK_ACQUIRE_FAIL));
-            }
+    @Override
+    public Uni<List<HeldLock>> getHeldLocks(int limit) {
+        // Key scans are only offered by the blocking API.
+        return Uni.createFrom().item(() -> scanHeldKeys(limit))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .onItem().transformToUni(this::getLeaseRemaining);
+    }
 
-            return supplier.get()
-                    .onTermination()
-                    .invoke(() -> releaseSemaphores(semaphores));
+    private Uni<Void> seedFences() {
+        return Uni.createFrom().deferred(() -> fencesSeeded
+                ? Uni.createFrom().voidItem()
+                : fenceStore.getMaxFence().onItem().invoke(maxFence -> {
+                    fenceFloor.accumulateAndGet(maxFence, Math::max);
+                    fencesSeeded = true;
+                }).onItem().ignore().andContinueWithNull());
+    }
 
+    private <T> Uni<T> execute(List<String> names, List<Object> keys, String token, long fence,
+            LongFunction<Uni<T>> work) {
+        long acquiredNanos = System.nanoTime();
+        LockDiagnostics.Holding holding = lockDiagnostics.acquired(names, fence);
+        Cancellable watchdog = Multi.createFrom().ticks().every(renewInterval)
+                .subscribe().with(tick -> renew(keys, token));
+        try {
+            return work.apply(fence)
+                    .onTermination()
+                    .invoke(() -> {
+                        watchdog.cancel();
+                        release(keys, token);
+                        lockDiagnostics.released(names, holding);
+                        lockMetrics.released(acquiredNanos);
+                    });
         } catch (RuntimeException e) {
-            releaseSemaphores(semaphores);
+            watchdog.cancel();
+            release(keys, token);
+            lockDiagnostics.released(names, holding);
+            lockMetrics.released(acquiredNanos);
             return Uni.createFrom().failure(e);
         }
     }
 
-    private Map<RPermitExpirableSemaphore, String> getSemaphores(List<String> names, RedissonClient redisson) {
-        return names.stream()
-                .map(name -> {
-                    RPermitExpirableSemaphore semaphore = redisson.getPermitExpirableSemaphore(name);
-                    semaphore.trySetPermits(1);
-                    return Map.entry(semaphore, acquireSemaphore(semaphore));
-                })
-                .takeWhile(status -> !NOT_ACQUIRED.equals(status.getValue()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private Uni<Long> acquire(List<String> names, List<Object> keys, String token, String[] blockedBy) {
+        List<Object> scriptKeys = new ArrayList<>(keys.size() + 1);
+        scriptKeys.add(FENCE_KEY);
+        scriptKeys.addAll(keys);
+
+        return Uni.createFrom()
+                .completionStage(() -> getScript().<Long>evalAsync(RScript.Mode.READ_WRITE, ACQUIRE_SCRIPT,
+                        RScript.ReturnType.INTEGER, scriptKeys, token, String.valueOf(leaseTimeMillis),
+                        String.valueOf(fenceFloor.get())))
+                .onItem().transform(fence -> {
+                    if (fence == null || fence <= 0) {
+                        if (fence != null && fence < 0) {
+                            blockedBy[0] = names.get((int) -fence - 1);
+                            lockDiagnostics.contended(blockedBy[0]);
+                        }
+                        throw new LockAcquireException(LOCK_ACQUIRE_FAIL);
+                    }
+                    return fence;
+                });
     }
 
-    private String acquireSemaphore(RPermitExpirableSemaphore expirableSemaphore) {
-        String retId = expirableSemaphore
-                .tryAcquireAsync(ACQUIRE_WAIT_TIME_SECONDS, LEASE_TIME_SECONDS, TimeUnit.SECONDS).join();
-        return Objects.isNull(retId) ? NOT_ACQUIRED : retId;
+    private List<String> scanHeldKeys(int limit) {
+        List<String> heldKeys = new ArrayList<>();
+        for (String key : redissonClient.getKeys().getKeysByPattern(KEY_PREFIX + "*", SCAN_BATCH_SIZE)) {
+            if (heldKeys.size() >= limit) {
+                break;
+            }
+            heldKeys.add(key);
+        }
+
+        return heldKeys;
     }
 
-    private void releaseSemaphores(Map<RPermitExpirableSemaphore, String> semaphoresMap) {
-        semaphoresMap.forEach((semaphore, id) -> {
-            if (!id.equals(NOT_ACQUIRED)) {
-                semaphore.tryRelease(id);
+    private Uni<List<HeldLock>> getLeaseRemaining(List<String> heldKeys) {
+        if (heldKeys.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+
+        RBatch batch = redissonClient.createBatch();
+        heldKeys.forEach(key -> batch.getBucket(key, StringCodec.INSTANCE).remainTimeToLiveAsync());
+
+        return Uni.createFrom().completionStage(batch::executeAsync).onItem().transform(result -> {
+            List<HeldLock> heldLocks = new ArrayList<>();
+            for (int i = 0; i < heldKeys.size(); i++) {
+                long leaseRemainingMillis = (Long) result.getResponses().get(i);
+                // Keys released since the scan report a negative time to live.
+                if (leaseRemainingMillis >= 0) {
+                    heldLocks.add(new HeldLock(heldKeys.get(i).substring(KEY_PREFIX.length()),
+                            Duration.ofMillis(leaseRemainingMillis)));
+                }
             }
+            return heldLocks;
         });
     }
+
+    private void renew(List<Object> keys, String token) {
+        getScript().<Long>evalAsync(RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER, keys, token,
+                String.valueOf(leaseTimeMillis))
+                .onComplete((renewed, failure) -> {
+                    if (failure != null) {
+                        LOG.warn("Unable to renew the lock lease.", failure);
+                    } else if (renewed < keys.size()) {
+                        LOG.warnf("Lock lease expired before the work completed, %d of %d names are still held.",
+                                renewed, keys.size());
+                    }
+                });
+    }
+
+    private void release(List<Object> keys, String token) {
+        getScript().evalAsync(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER, keys, token)
+                .onComplete((released, failure) -> {
+                    if (failure != null) {
+                        LOG.warn("Unable to release the lock, it will expire with its lease.", failure);
+                    }
+                });
+    }
+
+    private RScript getScript() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
 }
@@ -0,0 +1,75 @@
+package com.ajanoni.lock;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts per key over a sliding window kept as a ring of time buckets. Each bucket tracks at most a fixed number of
+ * keys, counts of keys beyond that are dropped, so memory stays bounded whatever the number of distinct keys.
+ */
+final class SlidingKeyCounter {
+
+    private final long bucketNanos;
+    private final int maxKeysPerBucket;
+    private final Bucket[] buckets;
+
+    SlidingKeyCounter(Duration window, int bucketCount, int maxKeysPerBucket) {
+        this.bucketNanos = Math.max(1, window.toNanos() / bucketCount);
+        this.maxKeysPerBucket = maxKeysPerBucket;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    void increment(String key) {
+        long epoch = System.nanoTime() / bucketNanos;
+        buckets[(int) Math.floorMod(epoch, (long) buckets.length)].increment(epoch, key, maxKeysPerBucket);
+    }
+
+    Map<String, Long> getCounts() {
+        long currentEpoch = System.nanoTime() / bucketNanos;
+        Map<String, Long> counts = new HashMap<>();
+        for (Bucket bucket : buckets) {
+            bucket.addTo(counts, currentEpoch - buckets.length);
+        }
+
+        return counts;
+    }
+
+    private static final class Bucket {
+
+        private final ConcurrentMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+        private volatile long epoch = Long.MIN_VALUE;
+
+        private void increment(long currentEpoch, String key, int maxKeys) {
+            if (epoch != currentEpoch) {
+                synchronized (this) {
+                    if (epoch != currentEpoch) {
+                        counts.clear();
+                        epoch = currentEpoch;
+                    }
+                }
+            }
+
+            LongAdder count = counts.get(key);
+            if (count == null) {
+                if (counts.size() >= maxKeys) {
+                    return;
+                }
+                count = counts.computeIfAbsent(key, newKey -> new LongAdder());
+            }
+            count.increment();
+        }
+
+        private void addTo(Map<String, Long> totals, long oldestExcludedEpoch) {
+            if (epoch > oldestExcludedEpoch) {
+                counts.forEach((key, count) -> totals.merge(key, count.sum(), Long::sum));
+            }
+        }
+    }
+}
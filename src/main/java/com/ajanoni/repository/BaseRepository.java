@@ -1,13 +1,24 @@
 package com.ajanoni.repository;
 
+import com.ajanoni.common.IdGenerator;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.mysqlclient.MySQLException;
 import io.vertx.mutiny.sqlclient.Row;
 import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.Tuple;
+import java.util.function.Supplier;
 
 class BaseRepository {
 
-    static final String QUERY_UUID = "SELECT UUID() AS id;";
     private static final String MESSAGE_DB_RESULT_ERROR = "Error on db operation.";
+    private static final int ER_DUP_ENTRY = 1062;
+    private static final int ID_BYTES = 16;
+
+    Uni<RowSet<Row>> execute(StatementTimer statement, SqlClient sqlClient, String query, Tuple queryParams) {
+        return statement.timed(() -> sqlClient.preparedQuery(query).execute(queryParams));
+    }
 
     <T> Uni<T> validateDbReturn(RowSet<Row> rows, T retValue) {
         if (rows.rowCount() > 0) {
@@ -15,4 +26,36 @@ class BaseRepository {
         }
         throw new IllegalStateException(MESSAGE_DB_RESULT_ERROR);
     }
+
+    <T> Uni<T> validateUpdate(RowSet<Row> rows, T retValue, Supplier<Uni<RowSet<Row>>> lookup) {
+        // The datasource reports affected rows, so an update leaving the row as it was reports none like a missing
+        // row. Only then the row is looked up to tell them apart.
+        if (rows.rowCount() > 0) {
+            return Uni.createFrom().item(retValue);
+        }
+
+        return lookup.get().onItem().transformToUni(found -> validateDbReturn(found, retValue));
+    }
+
+    boolean isDuplicateEntry(Throwable failure) {
+        return failure instanceof MySQLException && ((MySQLException) failure).getErrorCode() == ER_DUP_ENTRY;
+    }
+
+    Buffer toBinaryId(String id) {
+        if (id == null) {
+            return null;
+        }
+
+        try {
+            return Buffer.buffer(IdGenerator.toBytes(id));
+        } catch (IllegalArgumentException e) {
+            // Text that is not an id can not match a stored row, it is looked up as the nil id instead.
+            return Buffer.buffer(new byte[ID_BYTES]);
+        }
+    }
+
+    String toTextId(Row row, String column) {
+        io.vertx.mutiny.core.buffer.Buffer id = row.getBuffer(column);
+        return id != null ? IdGenerator.fromBytes(id.getBytes()) : null;
+    }
 }
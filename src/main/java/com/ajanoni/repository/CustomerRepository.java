@@ -2,13 +2,22 @@ package com.ajanoni.repository;
 
 import com.ajanoni.repository.model.Customer;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.SqlClient;
 
 public interface CustomerRepository {
 
     Uni<String> save(Customer data);
 
+    Uni<String> save(SqlClient sqlClient, Customer data);
+
+    Uni<String> upsert(SqlClient sqlClient, Customer data);
+
     Uni<Customer> update(Customer data);
 
+    Uni<Customer> update(SqlClient sqlClient, Customer data);
+
     Uni<Customer> getByEmail(String email);
 
+    Uni<Customer> getByEmail(SqlClient sqlClient, String email);
+
 }
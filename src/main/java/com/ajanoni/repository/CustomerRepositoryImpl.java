@@ -1,9 +1,12 @@
 package com.ajanoni.repository;
 
+import com.ajanoni.common.IdGenerator;
+import com.ajanoni.exception.ReservationRequestException;
 import com.ajanoni.repository.model.Customer;
 import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.mysqlclient.MySQLPool;
 import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.SqlClient;
 import io.vertx.mutiny.sqlclient.SqlClientHelper;
 import io.vertx.mutiny.sqlclient.Tuple;
 import javax.enterprise.context.ApplicationScoped;
@@ -13,55 +16,89 @@ import javax.inject.Inject;
 public class CustomerRepositoryImpl extends BaseRepository  implements CustomerRepository {
 
     private static final String INSERT_CUSTOMER = "INSERT INTO customers (id, email, full_name) VALUES (?, ?, ?);";
+    private static final String UPSERT_CUSTOMER = "INSERT INTO customers (id, email, full_name) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE full_name = VALUES(full_name);";
     private static final String UPDATE_CUSTOMER = "UPDATE customers SET email = ?, full_name = ? WHERE id = ?;";
+    private static final String QUERY_EXISTS = "SELECT 1 FROM customers WHERE id = ?;";
     private static final String QUERY_GET_BY_EMAIL = "SELECT id, email, full_name FROM customers WHERE email = ?;";
 
     private static final String COLUMN_ID = "id";
     private static final String COLUMN_EMAIL = "email";
     private static final String COLUMN_FULL_NAME = "full_name";
 
+    private static final int ROW_INSERTED = 1;
+    private static final String EMAIL_IN_USE = "Email is already used by another customer.";
+
     private final MySQLPool client;
+    private final StatementTimer insertTimer;
+    private final StatementTimer upsertTimer;
+    private final StatementTimer updateTimer;
+    private final StatementTimer existsTimer;
+    private final StatementTimer getByEmailTimer;
 
     @Inject
-    public CustomerRepositoryImpl(MySQLPool client) {
+    public CustomerRepositoryImpl(MySQLPool client, RepositoryMetrics repositoryMetrics) {
         this.client = client;
+        this.insertTimer = repositoryMetrics.statementTimer("customer.insert");
+        this.upsertTimer = repositoryMetrics.statementTimer("customer.upsert");
+        this.updateTimer = repositoryMetrics.statementTimer("customer.update");
+        this.existsTimer = repositoryMetrics.statementTimer("customer.exists");
+        this.getByEmailTimer = repositoryMetrics.statementTimer("customer.get-by-email");
     }
 
     @Override
     public Uni<String> save(Customer customer) {
-        return SqlClientHelper.inTransactionUni(client, tx ->
-                tx.preparedQuery(QUERY_UUID).execute().onItem().transformToUni(rowId -> {
-                    String id = rowId.iterator().next().getString(COLUMN_ID);
-                    Tuple queryParams = Tuple.of(id, customer.email(), customer.fullName());
-
-                    return tx.preparedQuery(INSERT_CUSTOMER)
-                            .execute(queryParams).onItem()
-                            .transformToUni(it -> validateDbReturn(it, id));
-                })
-        );
+        return SqlClientHelper.inTransactionUni(client, tx -> save(tx, customer));
+    }
+
+    @Override
+    public Uni<String> save(SqlClient sqlClient, Customer customer) {
+        String id = IdGenerator.newId();
+        Tuple queryParams = Tuple.of(toBinaryId(id), customer.email(), customer.fullName());
+
+        return execute(insertTimer, sqlClient, INSERT_CUSTOMER, queryParams).onItem()
+                .transformToUni(it -> validateDbReturn(it, id));
     }
 
+    @Override
+    public Uni<String> upsert(SqlClient sqlClient, Customer customer) {
+        String id = IdGenerator.newId();
+        Tuple queryParams = Tuple.of(toBinaryId(id), customer.email(), customer.fullName());
+
+        // With useAffectedRows set on the datasource url, one row affected is a new customer holding the generated
+        // id. An existing one reports two rows when renamed and none when unchanged, and is looked up by email.
+        return execute(upsertTimer, sqlClient, UPSERT_CUSTOMER, queryParams).onItem()
+                .transformToUni(rows -> rows.rowCount() == ROW_INSERTED
+                        ? Uni.createFrom().item(id)
+                        : getByEmail(sqlClient, customer.email()).onItem().transform(Customer::id));
+    }
+
+    @Override
     public Uni<Customer> update(Customer customer) {
-        return SqlClientHelper.inTransactionUni(client, tx ->
-        {
-            Tuple queryParams = Tuple.of(customer.email(), customer.fullName(), customer.id());
-
-            return tx.preparedQuery(UPDATE_CUSTOMER)
-                    .execute(queryParams).onItem()
-                    .transformToUni(it -> validateDbReturn(it, customer));
-        });
+        return SqlClientHelper.inTransactionUni(client, tx -> update(tx, customer));
     }
 
+    @Override
+    public Uni<Customer> update(SqlClient sqlClient, Customer customer) {
+        Tuple queryParams = Tuple.of(customer.email(), customer.fullName(), toBinaryId(customer.id()));
+
+        return execute(updateTimer, sqlClient, UPDATE_CUSTOMER, queryParams).onItem()
+                .transformToUni(it -> validateUpdate(it, customer,
+                        () -> execute(existsTimer, sqlClient, QUERY_EXISTS, Tuple.of(toBinaryId(customer.id())))))
+                .onFailure(this::isDuplicateEntry).transform(failure -> new ReservationRequestException(EMAIL_IN_USE));
+    }
+
+    @Override
     public Uni<Customer> getByEmail(String email) {
-        return SqlClientHelper.usingConnectionUni(client, conn ->
-                {
-                    Tuple queryParams = Tuple.of(email);
-
-                    return conn.preparedQuery(QUERY_GET_BY_EMAIL)
-                            .execute(queryParams).onItem()
-                            .transformToUni(this::getCustomerUni);
-                }
-        );
+        return SqlClientHelper.usingConnectionUni(client, conn -> getByEmail(conn, email));
+    }
+
+    @Override
+    public Uni<Customer> getByEmail(SqlClient sqlClient, String email) {
+        Tuple queryParams = Tuple.of(email);
+
+        return execute(getByEmailTimer, sqlClient, QUERY_GET_BY_EMAIL, queryParams).onItem()
+                .transformToUni(this::getCustomerUni);
     }
 
     private Uni<Customer> getCustomerUni(Iterable<Row> rowCustomer) {
@@ -71,7 +108,7 @@ public class CustomerRepositoryImpl extends BaseRepository  implements CustomerR
                     .next();
 
             Customer customer = Customer.builder()
-                    .id(row.getString(COLUMN_ID))
+                    .id(toTextId(row, COLUMN_ID))
                     .email(row.getString(COLUMN_EMAIL))
                     .fullName(row.getString(COLUMN_FULL_NAME))
                     .build();
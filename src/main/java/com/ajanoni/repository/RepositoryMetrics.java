@@ -0,0 +1,36 @@
+package com.ajanoni.repository;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+
+/**
+ * One timer per repository statement. Repositories take their timers when created.
+ */
+@ApplicationScoped
+public class RepositoryMetrics {
+
+    private static final String TAG_STATEMENT = "statement";
+
+    private static final Metadata STATEMENT = Metadata.builder()
+            .withName("repository.statement")
+            .withDescription("Time to run a repository statement, from sending it to reading its rows.")
+            .withType(MetricType.TIMER)
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+
+    private final MetricRegistry registry;
+
+    @Inject
+    public RepositoryMetrics(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    public StatementTimer statementTimer(String statement) {
+        return new StatementTimer(statement, registry.timer(STATEMENT, new Tag(TAG_STATEMENT, statement)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ajanoni.repository;
+
+import com.ajanoni.repository.model.Reservation;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+
+/**
+ * Bounded reservation cache by id. Entries expire after a short time so changes made by other instances are
+ * picked up. Invalidations bump a generation, so rows loaded before an invalidation are not cached after it.
+ */
+@ApplicationScoped
+public class ReservationCache {
+
+    private final Cache<String, Reservation> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    @Inject
+    public ReservationCache(ReservationCacheConfiguration cacheConfig) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheConfig.getMaximumSize())
+                .expireAfterWrite(cacheConfig.getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Reservation> get(String id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public void put(Reservation reservation) {
+        cache.put(reservation.id(), reservation);
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a reservation read from the database, unless an invalidation happened since the generation was taken
+     * before the read, as the row may predate the change behind it.
+     */
+    public void putIfNotInvalidated(Reservation reservation, long readGeneration) {
+        if (generation.get() != readGeneration) {
+            return;
+        }
+
+        cache.put(reservation.id(), reservation);
+        // An invalidation between the check and the put may already have run, drop the entry again in that case.
+        if (generation.get() != readGeneration) {
+            cache.invalidate(reservation.id());
+        }
+    }
+
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    @Gauge(name = "reservation.cache.hits", unit = MetricUnits.NONE, absolute = true,
+            description = "Reservation lookups served from the cache.")
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Gauge(name = "reservation.cache.misses", unit = MetricUnits.NONE, absolute = true,
+            description = "Reservation lookups that went to the database.")
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Gauge(name = "reservation.cache.evictions", unit = MetricUnits.NONE, absolute = true,
+            description = "Reservations evicted by size or expiry.")
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Gauge(name = "reservation.cache.size", unit = MetricUnits.NONE, absolute = true,
+            description = "Reservations currently cached.")
+    public long getSize() {
+        return cache.size();
+    }
+}
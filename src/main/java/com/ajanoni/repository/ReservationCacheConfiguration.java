@@ -0,0 +1,29 @@
+package com.ajanoni.repository;
+
+import io.quarkus.arc.config.ConfigProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.time.Duration;
+
+@ConfigProperties(prefix = "reservation-cache")
+@RegisterForReflection
+public class ReservationCacheConfiguration {
+
+    private long maximumSize = 10_000;
+    private Duration expireAfterWrite = Duration.ofMinutes(1);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+}
@@ -1,22 +1,35 @@
 package com.ajanoni.repository;
 
+import com.ajanoni.common.DateRange;
 import com.ajanoni.repository.model.Reservation;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.SqlClient;
 import java.time.LocalDate;
 
 public interface ReservationRepository {
 
     Uni<String> save(Reservation data);
 
+    Uni<String> save(SqlClient sqlClient, Reservation data);
+
     Uni<Reservation> update(Reservation data);
 
+    Uni<Reservation> update(SqlClient sqlClient, Reservation data);
+
     Uni<Boolean> delete(String id);
 
     Uni<Reservation> getById(String id);
 
-    Multi<LocalDate> getReservedDates(LocalDate startDate, LocalDate endDate);
+    void invalidateCached(String id);
+
+    Multi<LocalDate> getReservedDates(String unitId, LocalDate startDate, LocalDate endDate);
+
+    Multi<DateRange> getReservedRanges(String unitId, LocalDate startDate, LocalDate endDate);
+
+    Uni<Boolean> hasReservationBetween(String unitId, String reservationId, LocalDate startDate, LocalDate endDate);
 
-    Uni<Boolean> hasReservationBetween(String reservationId, LocalDate startDate, LocalDate endDate);
+    Uni<Boolean> hasReservationBetween(SqlClient sqlClient, String unitId, String reservationId, LocalDate startDate,
+            LocalDate endDate);
 
 }
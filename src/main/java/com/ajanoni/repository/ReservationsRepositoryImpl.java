@@ -1,161 +1,298 @@
 package com.ajanoni.repository;
 
+import com.ajanoni.common.DateRange;
+import com.ajanoni.common.DateUtil;
+import com.ajanoni.common.IdGenerator;
+import com.ajanoni.exception.ReservationConflictException;
+import com.ajanoni.lock.FenceStore;
 import com.ajanoni.repository.model.Reservation;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.subscription.MultiEmitter;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.mutiny.mysqlclient.MySQLPool;
 import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
 import io.vertx.mutiny.sqlclient.SqlClientHelper;
 import io.vertx.mutiny.sqlclient.Tuple;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.StreamSupport;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 @ApplicationScoped
-public class ReservationsRepositoryImpl extends BaseRepository implements ReservationRepository {
+public class ReservationsRepositoryImpl extends BaseRepository implements ReservationRepository, FenceStore {
 
     private static final String INSERT_RESERVATION = "INSERT INTO reservations "
-            + "(id, customer_id, arrival_date, departure_date) VALUES (?, ?, ?, ?);";
+            + "(id, customer_id, unit_id, arrival_date, departure_date, fence) VALUES (?, ?, ?, ?, ?, ?);";
 
     private static final String UPDATE_RESERVATION = "UPDATE reservations "
-            + "SET arrival_date = ?, departure_date = ? WHERE id = ?;";
+            + "SET unit_id = ?, arrival_date = ?, departure_date = ?, fence = COALESCE(?, fence) "
+            + "WHERE id = ? AND (? IS NULL OR fence IS NULL OR fence <= ?);";
 
     private static final String DELETE_RESERVATION = "DELETE FROM reservations WHERE id = ?;";
 
-    private static final String QUERY_GET_BY_ID = "SELECT id, customer_id, arrival_date, departure_date "
-            + "FROM reservations WHERE id = ?;";
+    private static final String INSERT_NIGHTS = "INSERT INTO reservation_nights (unit_id, night, reservation_id) "
+            + "VALUES ";
 
-    private static final String QUERY_RESERVED_DATES = "SELECT arrival_date, departure_date "
+    private static final String INSERT_NIGHTS_VALUES = "(?, ?, ?)";
+
+    private static final String DELETE_NIGHTS = "DELETE FROM reservation_nights WHERE reservation_id = ?;";
+
+    private static final String QUERY_GET_BY_ID = "SELECT id, customer_id, unit_id, arrival_date, departure_date, "
+            + "fence FROM reservations WHERE id = ?;";
+
+    private static final String QUERY_RESERVED_RANGES = "SELECT MIN(start_date) AS arrival_date, "
+            + "MAX(end_date) AS departure_date "
+            + "FROM (SELECT start_date, end_date, SUM(new_range) OVER (ORDER BY start_date, end_date) AS range_group "
+            + "FROM (SELECT start_date, end_date, "
+            + "CASE WHEN start_date <= DATE_ADD(MAX(end_date) OVER (ORDER BY start_date, end_date "
+            + "ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), INTERVAL 1 DAY) THEN 0 ELSE 1 END AS new_range "
+            + "FROM (SELECT GREATEST(DATE(arrival_date), ?) AS start_date, "
+            + "LEAST(DATE(departure_date), ?) AS end_date "
             + "FROM reservations "
-            + "WHERE (arrival_date >= ? AND arrival_date <= ?) "
-            + "OR (departure_date >= ? AND departure_date <= ?) ;";
+            + "WHERE unit_id = ? AND arrival_date <= ? AND departure_date >= ?) clipped) flagged) grouped "
+            + "GROUP BY range_group "
+            + "ORDER BY arrival_date;";
 
     private static final String QUERY_HAS_RESERVATION = "SELECT 1 FROM reservations "
-            + "WHERE id <> ? "
-            + "AND ((arrival_date >= ? AND arrival_date <= ?) "
-            + "OR (departure_date >= ? AND departure_date <= ?))"
+            + "WHERE unit_id = ? AND id <> ? AND arrival_date <= ? AND departure_date >= ? "
             + "LIMIT 1;";
 
+    private static final String QUERY_GET_FENCE = "SELECT fence FROM reservations WHERE id = ?;";
+
+    private static final String QUERY_MAX_FENCE = "SELECT MAX(fence) AS fence FROM reservations;";
+
     private static final String COLUMN_ID = "id";
     private static final String COLUMN_CUSTOMER_ID = "customer_id";
+    private static final String COLUMN_UNIT_ID = "unit_id";
     private static final String COLUMN_ARRIVAL_DATE = "arrival_date";
     private static final String COLUMN_DEPARTURE_DATE = "departure_date";
+    private static final String COLUMN_FENCE = "fence";
+
+    private static final String RESERVATION_CONFLICT = "Other reservation conflicts with the selected dates.";
+    private static final String STALE_FENCE = "Reservation was changed by a newer request.";
 
     private final MySQLPool client;
+    private final ReservationCache reservationCache;
+    private final StatementTimer insertTimer;
+    private final StatementTimer insertNightsTimer;
+    private final StatementTimer updateTimer;
+    private final StatementTimer deleteNightsTimer;
+    private final StatementTimer deleteTimer;
+    private final StatementTimer getByIdTimer;
+    private final StatementTimer hasReservationTimer;
+    private final StatementTimer reservedRangesTimer;
+    private final StatementTimer getFenceTimer;
+    private final StatementTimer maxFenceTimer;
 
     @Inject
-    public ReservationsRepositoryImpl(MySQLPool client) {
+    public ReservationsRepositoryImpl(MySQLPool client, ReservationCache reservationCache,
+            RepositoryMetrics repositoryMetrics) {
         this.client = client;
+        this.reservationCache = reservationCache;
+        this.insertTimer = repositoryMetrics.statementTimer("reservation.insert");
+        this.insertNightsTimer = repositoryMetrics.statementTimer("reservation.insert-nights");
+        this.updateTimer = repositoryMetrics.statementTimer("reservation.update");
+        this.deleteNightsTimer = repositoryMetrics.statementTimer("reservation.delete-nights");
+        this.deleteTimer = repositoryMetrics.statementTimer("reservation.delete");
+        this.getByIdTimer = repositoryMetrics.statementTimer("reservation.get-by-id");
+        this.hasReservationTimer = repositoryMetrics.statementTimer("reservation.has-reservation-between");
+        this.reservedRangesTimer = repositoryMetrics.statementTimer("reservation.reserved-ranges");
+        this.getFenceTimer = repositoryMetrics.statementTimer("reservation.get-fence");
+        this.maxFenceTimer = repositoryMetrics.statementTimer("reservation.max-fence");
     }
 
     @Override
     public Uni<String> save(Reservation reservation) {
-        return SqlClientHelper.usingConnectionUni(client, connection ->
-                connection.preparedQuery(QUERY_UUID).execute().onItem().transformToUni(rowId -> {
-                    String id = rowId.iterator().next().getString(COLUMN_ID);
-                    Tuple queryParams = Tuple.of(id, reservation.customerId(),
-                            reservation.arrivalDate(),
-                            reservation.departureDate());
-
-                    return connection.preparedQuery(INSERT_RESERVATION)
-                            .execute(queryParams).onItem()
-                            .transformToUni(it -> validateDbReturn(it, id));
-                })
-        );
+        return SqlClientHelper.inTransactionUni(client, tx -> save(tx, reservation))
+                .onItem().invoke(id -> reservationCache.put(reservation.toBuilder().id(id).build()));
+    }
+
+    @Override
+    public Uni<String> save(SqlClient sqlClient, Reservation reservation) {
+        String id = IdGenerator.newId();
+        Tuple queryParams = Tuple.of(toBinaryId(id), toBinaryId(reservation.customerId()), reservation.unitId(),
+                reservation.arrivalDate(),
+                reservation.departureDate(),
+                reservation.fence());
+
+        return execute(insertTimer, sqlClient, INSERT_RESERVATION, queryParams).onItem()
+                .transformToUni(it -> insertNights(sqlClient, id, reservation)).onItem()
+                .transformToUni(it -> validateDbReturn(it, id))
+                .onFailure(this::isDuplicateEntry).transform(this::toConflict);
     }
 
     @Override
     public Uni<Boolean> delete(String id) {
         return SqlClientHelper.usingConnectionUni(client, connection ->
         {
-            Tuple queryParams = Tuple.of(id);
+            Tuple queryParams = Tuple.of(toBinaryId(id));
 
-            return connection.preparedQuery(DELETE_RESERVATION)
-                    .execute(queryParams).onItem()
+            return execute(deleteTimer, connection, DELETE_RESERVATION, queryParams).onItem()
                     .transformToUni(it -> validateDbReturn(it, true));
-        });
+        }).onItemOrFailure().invoke((deleted, failure) -> reservationCache.invalidate(id));
     }
 
     @Override
     public Uni<Reservation> update(Reservation reservation) {
-        return SqlClientHelper.usingConnectionUni(client, connection ->
-        {
-            Tuple queryParams = Tuple.of(reservation.arrivalDate(),
-                    reservation.departureDate(),
-                    reservation.id());
+        return SqlClientHelper.inTransactionUni(client, tx -> update(tx, reservation))
+                .onItem().invoke(reservationCache::put);
+    }
 
-            return connection.preparedQuery(UPDATE_RESERVATION)
-                    .execute(queryParams).onItem()
-                    .transformToUni(it -> validateDbReturn(it, reservation));
-        });
+    @Override
+    public Uni<Reservation> update(SqlClient sqlClient, Reservation reservation) {
+        Buffer binaryId = toBinaryId(reservation.id());
+        Tuple queryParams = Tuple.of(reservation.unitId(), reservation.arrivalDate(),
+                reservation.departureDate(),
+                reservation.fence(),
+                binaryId)
+                .addLong(reservation.fence())
+                .addLong(reservation.fence());
+
+        // Runs inside the caller's transaction, the caller drops the cached copy once the transaction is over.
+        return execute(updateTimer, sqlClient, UPDATE_RESERVATION, queryParams).onItem()
+                .transformToUni(it -> validateFence(sqlClient, it, reservation)).onItem()
+                .transformToUni(it -> execute(deleteNightsTimer, sqlClient, DELETE_NIGHTS, Tuple.of(binaryId)))
+                .onItem().transformToUni(it -> insertNights(sqlClient, reservation.id(), reservation)).onItem()
+                .transformToUni(it -> validateDbReturn(it, reservation))
+                .onFailure(this::isDuplicateEntry).transform(this::toConflict);
     }
 
     @Override
     public Uni<Reservation> getById(String id) {
+        Optional<Reservation> cachedReservation = reservationCache.get(id);
+        if (cachedReservation.isPresent()) {
+            return Uni.createFrom().item(cachedReservation.get());
+        }
+
+        long readGeneration = reservationCache.getGeneration();
         return SqlClientHelper.usingConnectionUni(client, conn ->
                 {
-                    Tuple queryParams = Tuple.of(id);
+                    Tuple queryParams = Tuple.of(toBinaryId(id));
 
-                    return conn.preparedQuery(QUERY_GET_BY_ID)
-                            .execute(queryParams).onItem()
+                    return execute(getByIdTimer, conn, QUERY_GET_BY_ID, queryParams).onItem()
                             .transformToUni(this::getReservationUni);
                 }
-        );
+        ).onItem().ifNotNull().invoke(reservation -> reservationCache.putIfNotInvalidated(reservation, readGeneration));
+    }
+
+    @Override
+    public void invalidateCached(String id) {
+        reservationCache.invalidate(id);
     }
 
     @Override
-    public Uni<Boolean> hasReservationBetween(String reservationId, LocalDate startDate, LocalDate endDate) {
+    public Uni<Boolean> hasReservationBetween(String unitId, String reservationId, LocalDate startDate,
+            LocalDate endDate) {
         return SqlClientHelper.usingConnectionUni(client, conn ->
-        {
-            Tuple queryParams = Tuple.of(reservationId, startDate, endDate, startDate, endDate);
+                hasReservationBetween(conn, unitId, reservationId, startDate, endDate));
+    }
 
-            return conn.preparedQuery(QUERY_HAS_RESERVATION)
-                    .execute(queryParams).onItem()
-                    .transformToUni(rows ->
-                            rows.iterator().hasNext() ? Uni.createFrom().item(true) : Uni.createFrom().item(false));
-        });
+    @Override
+    public Uni<Boolean> hasReservationBetween(SqlClient sqlClient, String unitId, String reservationId,
+            LocalDate startDate, LocalDate endDate) {
+        Tuple queryParams = Tuple.of(unitId, toBinaryId(reservationId), endDate, startDate);
+
+        return execute(hasReservationTimer, sqlClient, QUERY_HAS_RESERVATION, queryParams).onItem()
+                .transformToUni(rows ->
+                        rows.iterator().hasNext() ? Uni.createFrom().item(true) : Uni.createFrom().item(false));
     }
 
     @Override
-    public Multi<LocalDate> getReservedDates(LocalDate startDate, LocalDate endDate) {
+    public Multi<LocalDate> getReservedDates(String unitId, LocalDate startDate, LocalDate endDate) {
         return SqlClientHelper.usingConnectionMulti(client, conn ->
                 {
-                    Tuple queryParams = Tuple.of(startDate, endDate, startDate, endDate);
+                    Tuple queryParams = Tuple.of(startDate, endDate, unitId, endDate, startDate);
 
-                    return conn.preparedQuery(QUERY_RESERVED_DATES)
-                            .execute(queryParams).onItem()
+                    return execute(reservedRangesTimer, conn, QUERY_RESERVED_RANGES, queryParams).onItem()
                             .transformToMulti(rows ->
-                                    Multi.createFrom()
-                                            .emitter(emitter -> emmitSequenceDates(rows, startDate, endDate, emitter)));
+                                    Multi.createFrom().emitter(emitter -> emmitSequenceDates(rows, emitter)));
                 }
         );
     }
 
-    private void emmitSequenceDates(Iterable<Row> rows, LocalDate startDate, LocalDate endDate,
-            MultiEmitter<? super LocalDate> emitter) {
+    @Override
+    public Multi<DateRange> getReservedRanges(String unitId, LocalDate startDate, LocalDate endDate) {
+        return SqlClientHelper.usingConnectionMulti(client, conn ->
+                {
+                    Tuple queryParams = Tuple.of(startDate, endDate, unitId, endDate, startDate);
 
-        StreamSupport.stream(rows.spliterator(), false).forEach(row -> {
-            LocalDate arrivalDate = row.getLocalDateTime(COLUMN_ARRIVAL_DATE).toLocalDate();
-            LocalDate departureDateDate = row.getLocalDateTime(COLUMN_DEPARTURE_DATE).toLocalDate();
+                    return execute(reservedRangesTimer, conn, QUERY_RESERVED_RANGES, queryParams).onItem()
+                            .transformToMulti(rows -> Multi.createFrom().iterable(rows).map(this::getRange));
+                }
+        );
+    }
+
+    @Override
+    public Uni<Long> getMaxFence() {
+        return SqlClientHelper.usingConnectionUni(client, conn ->
+                execute(maxFenceTimer, conn, QUERY_MAX_FENCE, Tuple.tuple()).onItem()
+                        .transform(rows -> {
+                            Long maxFence = rows.iterator().next().getLong(COLUMN_FENCE);
+                            return maxFence != null ? maxFence : 0L;
+                        }));
+    }
+
+    private Uni<RowSet<Row>> insertNights(SqlClient sqlClient, String id, Reservation reservation) {
+        List<LocalDate> nights = DateUtil.getContinuousDates(reservation.arrivalDate(), reservation.departureDate());
+        Tuple queryParams = Tuple.tuple();
+        Buffer binaryId = toBinaryId(id);
+        nights.forEach(night -> queryParams.addString(reservation.unitId()).addLocalDate(night).addValue(binaryId));
 
-            LocalDate startSequence = arrivalDate.isBefore(startDate) ? startDate : arrivalDate;
-            LocalDate endSequence = departureDateDate.isAfter(endDate) ? endDate : departureDateDate;
-            startSequence.datesUntil(endSequence.plusDays(1)).forEach(emitter::emit);
+        String insertNights = INSERT_NIGHTS + String.join(", ", Collections.nCopies(nights.size(),
+                INSERT_NIGHTS_VALUES));
+
+        return execute(insertNightsTimer, sqlClient, insertNights, queryParams);
+    }
+
+    private Uni<Reservation> validateFence(SqlClient sqlClient, RowSet<Row> rows, Reservation reservation) {
+        return validateUpdate(rows, reservation, () -> execute(getFenceTimer, sqlClient, QUERY_GET_FENCE,
+                Tuple.of(toBinaryId(reservation.id()))).onItem()
+                .invoke(fenceRows -> checkFence(fenceRows, reservation)));
+    }
+
+    private void checkFence(RowSet<Row> fenceRows, Reservation reservation) {
+        // A fenced update that matches no row lost its lock to a newer holder, which has already written the row.
+        if (reservation.fence() != null && fenceRows.iterator().hasNext()) {
+            Long fence = fenceRows.iterator().next().getLong(COLUMN_FENCE);
+            if (fence != null && fence > reservation.fence()) {
+                throw new ReservationConflictException(STALE_FENCE);
+            }
+        }
+    }
+
+    private Throwable toConflict(Throwable duplicateEntry) {
+        return new ReservationConflictException(RESERVATION_CONFLICT);
+    }
+
+    void emmitSequenceDates(Iterable<Row> rows, MultiEmitter<? super LocalDate> emitter) {
+        StreamSupport.stream(rows.spliterator(), false).forEach(row -> {
+            DateRange range = getRange(row);
+            range.startDate().datesUntil(range.endDate().plusDays(1)).forEach(emitter::emit);
         });
 
         emitter.complete();
     }
 
+    private DateRange getRange(Row row) {
+        return new DateRange(row.getLocalDate(COLUMN_ARRIVAL_DATE), row.getLocalDate(COLUMN_DEPARTURE_DATE));
+    }
+
     private Uni<Reservation> getReservationUni(Iterable<Row> rowReservation) {
         if (rowReservation.iterator().hasNext()) {
             Row row = rowReservation.iterator().next();
             Reservation reservation = Reservation.builder()
-                    .id(row.getString(COLUMN_ID))
-                    .customerId( row.getString(COLUMN_CUSTOMER_ID))
+                    .id(toTextId(row, COLUMN_ID))
+                    .customerId(toTextId(row, COLUMN_CUSTOMER_ID))
+                    .unitId(row.getString(COLUMN_UNIT_ID))
                     .arrivalDate(row.getLocalDateTime(COLUMN_ARRIVAL_DATE).toLocalDate())
                     .departureDate(row.getLocalDateTime(COLUMN_DEPARTURE_DATE).toLocalDate())
+                    .fence(row.getLong(COLUMN_FENCE))
                     .build();
 
             return Uni.createFrom().item(reservation);
@@ -0,0 +1,65 @@
+package com.ajanoni.repository;
+
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of one prepared repository statement.
+ */
+@Name("com.ajanoni.booking.Statement")
+@Label("Repository Statement")
+@Category({"Booking", "Database"})
+@Description("A prepared repository statement, from sending it to reading its rows.")
+@Enabled(false)
+@StackTrace(false)
+final class StatementEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(StatementEvent.class);
+
+    @Label("Statement")
+    private String statement;
+
+    @Label("Rows Returned")
+    private int rowsReturned;
+
+    @Label("Rows Affected")
+    private int rowsAffected;
+
+    @Label("Failure")
+    private String failure;
+
+    static StatementEvent begin(String statement) {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        StatementEvent event = new StatementEvent();
+        event.statement = statement;
+        event.begin();
+        return event;
+    }
+
+    static void commit(StatementEvent event, RowSet<Row> rows, Throwable failure) {
+        if (event == null) {
+            return;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            if (rows != null) {
+                event.rowsReturned = rows.size();
+                event.rowsAffected = rows.rowCount();
+            }
+            event.failure = failure != null ? failure.getClass().getSimpleName() : null;
+            event.commit();
+        }
+    }
+}
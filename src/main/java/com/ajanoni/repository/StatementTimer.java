@@ -0,0 +1,34 @@
+package com.ajanoni.repository;
+
+import com.ajanoni.common.Timings;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.metrics.Timer;
+
+/**
+ * Records each run of one repository statement to its timer and, when a recording enables it, as a
+ * {@link StatementEvent}.
+ */
+public final class StatementTimer {
+
+    private final String statement;
+    private final Timer timer;
+
+    StatementTimer(String statement, Timer timer) {
+        this.statement = statement;
+        this.timer = timer;
+    }
+
+    Uni<RowSet<Row>> timed(Supplier<Uni<RowSet<Row>>> operation) {
+        return Uni.createFrom().deferred(() -> {
+            long startNanos = System.nanoTime();
+            StatementEvent event = StatementEvent.begin(statement);
+            return operation.get().onTermination().invoke((rows, failure, cancelled) -> {
+                Timings.record(timer, startNanos);
+                StatementEvent.commit(event, rows, failure);
+            });
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.ajanoni.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.mysqlclient.MySQLPool;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.SqlClientHelper;
+import java.util.function.Function;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Runs repository calls on one pooled connection and one transaction, committed when the work completes and rolled
+ * back when it fails.
+ */
+@ApplicationScoped
+public class UnitOfWork {
+
+    private final MySQLPool client;
+
+    @Inject
+    public UnitOfWork(MySQLPool client) {
+        this.client = client;
+    }
+
+    public <T> Uni<T> inTransaction(Function<SqlClient, Uni<T>> work) {
+        return SqlClientHelper.inTransactionUni(client, work::apply);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ajanoni.repository;
+
+import io.quarkus.arc.config.ConfigProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.time.Duration;
+
+@ConfigProperties(prefix = "write-batch")
+@RegisterForReflection
+public class WriteBatchConfiguration {
+
+    private boolean enabled = false;
+    private int maxSize = 32;
+    private Duration window = Duration.ofMillis(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+}
@@ -0,0 +1,173 @@
+package com.ajanoni.repository;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.mutiny.mysqlclient.MySQLPool;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.SqlClientHelper;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Group commit of concurrent writes. Work submitted within the same window runs on one connection and one
+ * transaction, each under its own savepoint so a failing write only rolls back itself, and a single commit completes
+ * every caller with its own result. When the batch fails before its commit is sent the writes run again one
+ * transaction each. A failed commit fails every caller instead, since the batch may have been committed anyway.
+ */
+@ApplicationScoped
+public class WriteBatcher {
+
+    private static final Logger LOG = Logger.getLogger(WriteBatcher.class);
+
+    private static final String START_TRANSACTION = "START TRANSACTION";
+    private static final String COMMIT = "COMMIT";
+    private static final String ROLLBACK = "ROLLBACK";
+    private static final String SAVEPOINT = "SAVEPOINT batch_item";
+    private static final String ROLLBACK_TO_SAVEPOINT = "ROLLBACK TO SAVEPOINT batch_item";
+
+    private final MySQLPool client;
+    private final UnitOfWork unitOfWork;
+    private final WriteBatchConfiguration batchConfig;
+
+    private List<PendingWrite<?>> pending = new ArrayList<>();
+
+    @Inject
+    public WriteBatcher(MySQLPool client, UnitOfWork unitOfWork, WriteBatchConfiguration batchConfig) {
+        this.client = client;
+        this.unitOfWork = unitOfWork;
+        this.batchConfig = batchConfig;
+    }
+
+    public <T> Uni<T> submit(Function<SqlClient, Uni<T>> work) {
+        if (!batchConfig.isEnabled()) {
+            return unitOfWork.inTransaction(work);
+        }
+
+        return Uni.createFrom().deferred(() -> {
+            PendingWrite<T> write = new PendingWrite<>(work);
+            enqueue(write);
+            return Uni.createFrom().completionStage(write.result);
+        });
+    }
+
+    private void enqueue(PendingWrite<?> write) {
+        List<PendingWrite<?>> full = null;
+        boolean firstOfBatch;
+        synchronized (this) {
+            pending.add(write);
+            firstOfBatch = pending.size() == 1;
+            if (pending.size() >= batchConfig.getMaxSize()) {
+                full = pending;
+                pending = new ArrayList<>();
+            }
+        }
+
+        if (full != null) {
+            flush(full);
+        } else if (firstOfBatch) {
+            Infrastructure.getDefaultWorkerPool().schedule(this::flushPending,
+                    batchConfig.getWindow().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPending() {
+        List<PendingWrite<?>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        flush(batch);
+    }
+
+    private void flush(List<PendingWrite<?>> batch) {
+        AtomicBoolean commitSent = new AtomicBoolean();
+        SqlClientHelper.usingConnectionUni(client, connection -> execute(connection, batch, commitSent))
+                .subscribe().with(
+                        committed -> batch.forEach(PendingWrite::complete),
+                        failure -> {
+                            if (commitSent.get()) {
+                                LOG.warnf(failure, "Commit of a batch of %d writes failed, its outcome is unknown.",
+                                        batch.size());
+                                batch.forEach(write -> write.result.completeExceptionally(failure));
+                                return;
+                            }
+
+                            LOG.debugf(failure, "Unable to commit a batch of %d writes, running them one by one.",
+                                    batch.size());
+                            batch.forEach(this::runAlone);
+                        });
+    }
+
+    private Uni<Void> execute(SqlConnection connection, List<PendingWrite<?>> batch, AtomicBoolean commitSent) {
+        return connection.query(START_TRANSACTION).execute().onItem()
+                .transformToMulti(started -> Multi.createFrom().iterable(batch)).onItem()
+                .transformToUniAndConcatenate(write -> execute(connection, write))
+                .collectItems().last().onItem()
+                .transformToUni(executed -> {
+                    commitSent.set(true);
+                    return connection.query(COMMIT).execute();
+                }).onItem()
+                .ignore().andContinueWithNull()
+                .onFailure().recoverWithUni(failure -> connection.query(ROLLBACK).execute()
+                        .onFailure().recoverWithItem(() -> null).onItem()
+                        .transformToUni(rolledBack -> Uni.createFrom().failure(failure)));
+    }
+
+    private Uni<Boolean> execute(SqlConnection connection, PendingWrite<?> write) {
+        return connection.query(SAVEPOINT).execute().onItem()
+                .transformToUni(savepoint -> write.run(connection)).onItem()
+                .transformToUni(succeeded -> succeeded
+                        ? Uni.createFrom().item(true)
+                        : connection.query(ROLLBACK_TO_SAVEPOINT).execute().onItem().transform(rolledBack -> false));
+    }
+
+    private <T> void runAlone(PendingWrite<T> write) {
+        unitOfWork.inTransaction(write.work).subscribe().with(write.result::complete,
+                write.result::completeExceptionally);
+    }
+
+    private static final class PendingWrite<T> {
+
+        private final Function<SqlClient, Uni<T>> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private T item;
+        private Throwable failure;
+
+        private PendingWrite(Function<SqlClient, Uni<T>> work) {
+            this.work = work;
+        }
+
+        private Uni<Boolean> run(SqlClient sqlClient) {
+            item = null;
+            failure = null;
+            return Uni.createFrom().deferred(() -> work.apply(sqlClient)).onItemOrFailure()
+                    .transform((value, error) -> {
+                        item = value;
+                        failure = error;
+                        return error == null;
+                    });
+        }
+
+        private void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(item);
+            }
+        }
+    }
+}
@@ -7,14 +7,16 @@ import lombok.Value;
 import lombok.experimental.Accessors;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 @Accessors(fluent = true)
 @RegisterForReflection
 public class Reservation {
 
     private final String id;
     private final String customerId;
+    private final String unitId;
     private final LocalDate arrivalDate;
     private final LocalDate departureDate;
+    private final Long fence;
 
 }
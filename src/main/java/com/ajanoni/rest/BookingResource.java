@@ -1,59 +1,135 @@
 package com.ajanoni.rest;
 
-import com.ajanoni.dto.AvailableDateResult;
+import com.ajanoni.dto.AvailableRangeResult;
 import com.ajanoni.dto.ReservationCommand;
 import com.ajanoni.dto.ReservationCommandResult;
+import com.ajanoni.dto.ScheduleBatchQuery;
+import com.ajanoni.dto.ScheduleChangeResult;
+import com.ajanoni.dto.ScheduleWindowResult;
+import com.ajanoni.idempotency.IdempotencyStore;
+import com.ajanoni.rest.filter.ScheduleTagFilter;
+import com.ajanoni.rest.filter.ScheduleTagged;
 import com.ajanoni.service.booking.BookingCommandHandler;
 import com.ajanoni.service.booking.BookingQueryHandler;
+import com.ajanoni.tracing.StageTimings;
+import com.ajanoni.tracing.StageTracer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
 import javax.validation.Valid;
+import javax.validation.constraints.Size;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
 @Path("/booking")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class BookingResource {
 
+    private static final String SCHEDULE_CHANGE_EVENT = "schedule-change";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+    private static final String IDEMPOTENCY_KEY_SEPARATOR = ":";
+    private static final String CREATE_SCOPE = "create";
+    private static final String UPDATE_SCOPE = "update";
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final String CREATE_SPAN = "booking.create";
+    private static final String UPDATE_SPAN = "booking.update";
+
     private final BookingCommandHandler bookingCommand;
     private final BookingQueryHandler queryCommand;
+    private final IdempotencyStore idempotencyStore;
+    private final StageTracer stageTracer;
+    private final ObjectMapper objectMapper;
 
-    public BookingResource(BookingCommandHandler bookingCommand, BookingQueryHandler queryCommand) {
+    public BookingResource(BookingCommandHandler bookingCommand, BookingQueryHandler queryCommand,
+            IdempotencyStore idempotencyStore, StageTracer stageTracer, ObjectMapper objectMapper) {
         this.bookingCommand = bookingCommand;
         this.queryCommand = queryCommand;
+        this.idempotencyStore = idempotencyStore;
+        this.stageTracer = stageTracer;
+        this.objectMapper = objectMapper;
     }
 
     @GET
     @Path("/schedule")
-    public Multi<AvailableDateResult> getAvailableDays(@QueryParam("startDate") LocalDate startDate,
-            @QueryParam("endDate") LocalDate endDate) {
-        return queryCommand.getAvailableDates(startDate, endDate);
+    @ScheduleTagged
+    @Produces({MediaType.APPLICATION_JSON, AvailableRangeResult.MEDIA_TYPE})
+    public Multi<?> getAvailableDays(@QueryParam("startDate") LocalDate startDate,
+            @QueryParam("endDate") LocalDate endDate, @QueryParam("unitId") String unitId,
+            @QueryParam("format") String format, @Context HttpHeaders headers) {
+        // ScheduleTagFilter answers conditional requests and tags the response, both formats are streamed.
+        if (ScheduleTagFilter.isRangesRequested(format, headers.getAcceptableMediaTypes())) {
+            return queryCommand.getAvailableRanges(unitId, startDate, endDate);
+        }
+
+        return queryCommand.getAvailableDates(unitId, startDate, endDate);
     }
 
     @POST
-    public Uni<ReservationCommandResult> createReservation(@Valid ReservationCommand reservationCommand) {
-        return bookingCommand
-                .createReservationWithLock(reservationCommand)
-                .map(ReservationCommandResult::new);
+    @Path("/schedule/batch")
+    public Uni<List<ScheduleWindowResult>> getAvailableDaysBatch(@Valid ScheduleBatchQuery scheduleBatchQuery) {
+        return queryCommand.getAvailableDates(scheduleBatchQuery);
+    }
+
+    @GET
+    @Path("/schedule/changes")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public Multi<OutboundSseEvent> getScheduleChanges(@HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+            @Context Sse sse) {
+        return queryCommand.getScheduleChanges(lastEventId)
+                .map(change -> sse.newEventBuilder()
+                        .id(change.getId())
+                        .name(SCHEDULE_CHANGE_EVENT)
+                        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                        .data(ScheduleChangeResult.class, change)
+                        .build());
+    }
+
+    @POST
+    @APIResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = ReservationCommandResult.class)))
+    public Uni<Response> createReservation(
+            @HeaderParam(IDEMPOTENCY_KEY_HEADER) @Size(max = IDEMPOTENCY_KEY_MAX_LENGTH) String idempotencyKey,
+            @Valid ReservationCommand reservationCommand) {
+        StageTimings timings = stageTracer.start(CREATE_SPAN);
+        return traced(timings, idempotent(CREATE_SCOPE, idempotencyKey, reservationCommand,
+                () -> bookingCommand.createReservationWithLock(reservationCommand, timings)));
     }
 
     @PUT
     @Path("/{id}")
-    public Uni<ReservationCommandResult> updateReservation(@PathParam("id") String id,
+    @APIResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = ReservationCommandResult.class)))
+    public Uni<Response> updateReservation(@PathParam("id") String id,
+            @HeaderParam(IDEMPOTENCY_KEY_HEADER) @Size(max = IDEMPOTENCY_KEY_MAX_LENGTH) String idempotencyKey,
             @Valid ReservationCommand reservationCommand) {
-        return bookingCommand
-                .updateReservationWithLock(id, reservationCommand)
-                .map(ReservationCommandResult::new);
+        StageTimings timings = stageTracer.start(UPDATE_SPAN);
+        return traced(timings, idempotent(UPDATE_SCOPE + IDEMPOTENCY_KEY_SEPARATOR + id, idempotencyKey,
+                reservationCommand, () -> bookingCommand.updateReservationWithLock(id, reservationCommand, timings)));
     }
 
     @DELETE
@@ -63,4 +139,35 @@ public class BookingResource {
                 .deleteReservation(id)
                 .map(ReservationCommandResult::new);
     }
+
+    private Uni<String> idempotent(String scope, String idempotencyKey, ReservationCommand reservationCommand,
+            Supplier<Uni<String>> command) {
+        if (idempotencyKey == null) {
+            return command.get();
+        }
+
+        // Replays return the stored id without running validation, locks or queries again.
+        return idempotencyStore.execute(scope + IDEMPOTENCY_KEY_SEPARATOR + idempotencyKey,
+                fingerprint(reservationCommand), command);
+    }
+
+    private String fingerprint(ReservationCommand reservationCommand) {
+        try {
+            return Hashing.sha256().hashBytes(objectMapper.writeValueAsBytes(reservationCommand)).toString();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Uni<Response> traced(StageTimings timings, Uni<String> command) {
+        return command
+                .onTermination().invoke((id, failure, cancelled) -> stageTracer.finish(timings, failure))
+                .map(id -> {
+                    Response.ResponseBuilder response = Response.ok(new ReservationCommandResult(id));
+                    if (stageTracer.isServerTimingEnabled()) {
+                        response.header(SERVER_TIMING_HEADER, timings.toServerTiming());
+                    }
+                    return response.build();
+                });
+    }
 }
@@ -0,0 +1,47 @@
+package com.ajanoni.rest;
+
+import com.ajanoni.dto.LockDiagnosticsResult;
+import com.ajanoni.lock.LockConfiguration;
+import com.ajanoni.service.lock.LockDiagnosticsQueryHandler;
+import io.smallrye.mutiny.Uni;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+
+@Path("/admin/locks")
+@Produces(MediaType.APPLICATION_JSON)
+public class LockDiagnosticsResource {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final LockDiagnosticsQueryHandler lockDiagnosticsQuery;
+    private final LockConfiguration lockConfig;
+
+    public LockDiagnosticsResource(LockDiagnosticsQueryHandler lockDiagnosticsQuery, LockConfiguration lockConfig) {
+        this.lockDiagnosticsQuery = lockDiagnosticsQuery;
+        this.lockConfig = lockConfig;
+    }
+
+    @GET
+    @APIResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = LockDiagnosticsResult.class)))
+    public Uni<Response> getLockDiagnostics(
+            @QueryParam("limit") @DefaultValue("10") @Min(1) @Max(MAX_LIMIT) int limit) {
+        // held lock names expose booked units and dates, so the endpoint stays hidden unless enabled
+        if (!lockConfig.isDiagnosticsEndpointEnabled()) {
+            return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+        }
+
+        return lockDiagnosticsQuery.getDiagnostics(limit).onItem()
+                .transform(diagnostics -> Response.ok(diagnostics).build());
+    }
+}
@@ -0,0 +1,20 @@
+package com.ajanoni.rest.exception.handler;
+
+import com.ajanoni.exception.IdempotencyKeyReuseException;
+import com.ajanoni.rest.exception.ErrorResponses;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+@Provider
+public class IdempotencyKeyReuseExceptionHandler implements ExceptionMapper<IdempotencyKeyReuseException> {
+
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    @Override
+    public Response toResponse(IdempotencyKeyReuseException exception) {
+        return Response.status(UNPROCESSABLE_ENTITY)
+                .entity(ErrorResponses.of(exception.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.ajanoni.rest.filter;
+
+import javax.ws.rs.container.ResourceInfo;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of one resource request, from matching it to writing the response status.
+ */
+@Name("com.ajanoni.booking.Request")
+@Label("Resource Request")
+@Category({"Booking", "Request"})
+@Description("Handling of one resource request, including the reactive pipeline it waits on.")
+@Enabled(false)
+@StackTrace(false)
+final class RequestEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(RequestEvent.class);
+
+    @Label("Method")
+    private String method;
+
+    @Label("Resource")
+    @Description("Resource class and method handling the request.")
+    private String resource;
+
+    @Label("Status")
+    private int status;
+
+    static RequestEvent begin(String method, ResourceInfo resourceInfo) {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        RequestEvent event = new RequestEvent();
+        event.method = method;
+        if (resourceInfo.getResourceMethod() != null) {
+            event.resource = resourceInfo.getResourceClass().getSimpleName() + "."
+                    + resourceInfo.getResourceMethod().getName();
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commit(RequestEvent event, int status) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.status = status;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ajanoni.rest.filter;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Emits a {@link RequestEvent} per resource request. Response filters run once the reactive result is written, so
+ * the event spans the whole pipeline.
+ */
+@Provider
+public class RequestEventFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String EVENT_PROPERTY = RequestEvent.class.getName();
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        RequestEvent event = RequestEvent.begin(requestContext.getMethod(), resourceInfo);
+        if (event != null) {
+            requestContext.setProperty(EVENT_PROPERTY, event);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object event = requestContext.getProperty(EVENT_PROPERTY);
+        if (event != null) {
+            RequestEvent.commit((RequestEvent) event, responseContext.getStatus());
+        }
+    }
+}
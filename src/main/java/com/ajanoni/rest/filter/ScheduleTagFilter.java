@@ -0,0 +1,86 @@
+package com.ajanoni.rest.filter;
+
+import com.ajanoni.dto.AvailableRangeResult;
+import com.ajanoni.service.calendar.CalendarConfiguration;
+import com.ajanoni.service.calendar.OccupancyCalendar;
+import java.util.List;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Tags the schedule with the calendar version and answers matching conditional requests with 304 before the
+ * resource runs, so the resource can return the schedule as a stream instead of building a response.
+ * <p>
+ * The calendar version only moves with writes made through this instance, so schedules are only tagged in
+ * single-node deployments.
+ */
+@Provider
+@ScheduleTagged
+public class ScheduleTagFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    public static final MediaType RANGES_MEDIA_TYPE = MediaType.valueOf(AvailableRangeResult.MEDIA_TYPE);
+
+    private static final String FORMAT_PARAM = "format";
+    private static final String RANGES_FORMAT = "ranges";
+    private static final String RANGES_TAG_SUFFIX = "-ranges";
+    private static final String TAG_PROPERTY = ScheduleTagFilter.class.getName() + ".tag";
+    private static final String RANGES_PROPERTY = ScheduleTagFilter.class.getName() + ".ranges";
+
+    private final OccupancyCalendar occupancyCalendar;
+    private final CalendarConfiguration calendarConfig;
+
+    public ScheduleTagFilter(OccupancyCalendar occupancyCalendar, CalendarConfiguration calendarConfig) {
+        this.occupancyCalendar = occupancyCalendar;
+        this.calendarConfig = calendarConfig;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        boolean rangesRequested = isRangesRequested(
+                requestContext.getUriInfo().getQueryParameters().getFirst(FORMAT_PARAM),
+                requestContext.getAcceptableMediaTypes());
+        requestContext.setProperty(RANGES_PROPERTY, rangesRequested);
+        if (!calendarConfig.isSingleNode()) {
+            return;
+        }
+
+        // The tag is taken before querying, a write racing with the query can only make the tag older than the body.
+        EntityTag entityTag = new EntityTag(occupancyCalendar.getVersionTag()
+                + (rangesRequested ? RANGES_TAG_SUFFIX : ""));
+        requestContext.setProperty(TAG_PROPERTY, entityTag);
+
+        Response.ResponseBuilder notModified = requestContext.getRequest().evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            requestContext.abortWith(notModified.build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        responseContext.getHeaders().putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (responseContext.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+
+        Object entityTag = requestContext.getProperty(TAG_PROPERTY);
+        if (entityTag != null) {
+            responseContext.getHeaders().putSingle(HttpHeaders.ETAG, entityTag);
+        }
+        if (Boolean.TRUE.equals(requestContext.getProperty(RANGES_PROPERTY))) {
+            responseContext.getHeaders().putSingle(HttpHeaders.CONTENT_TYPE, RANGES_MEDIA_TYPE);
+        }
+    }
+
+    public static boolean isRangesRequested(String format, List<MediaType> acceptableMediaTypes) {
+        return RANGES_FORMAT.equals(format) || acceptableMediaTypes.stream()
+                .anyMatch(type -> RANGES_MEDIA_TYPE.getType().equals(type.getType())
+                        && RANGES_MEDIA_TYPE.getSubtype().equals(type.getSubtype()));
+    }
+}
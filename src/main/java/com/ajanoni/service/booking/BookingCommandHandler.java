@@ -6,11 +6,17 @@ import com.ajanoni.exception.LockAcquireException;
 import com.ajanoni.exception.ReservationConflictException;
 import com.ajanoni.exception.ReservationNotFoundException;
 import com.ajanoni.lock.LockHandler;
+import com.ajanoni.repository.UnitOfWork;
+import com.ajanoni.repository.WriteBatcher;
 import com.ajanoni.repository.model.Reservation;
 import com.ajanoni.repository.ReservationRepository;
 import com.ajanoni.dto.ReservationCommand;
+import com.ajanoni.service.booking.BookingMetrics.Command;
+import com.ajanoni.service.calendar.OccupancyCalendar;
+import com.ajanoni.service.inventory.InventoryConfiguration;
+import com.ajanoni.tracing.StageTimings;
 import io.smallrye.mutiny.Uni;
-import java.time.LocalDate;
+import io.vertx.mutiny.sqlclient.SqlClient;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.enterprise.context.ApplicationScoped;
@@ -20,91 +26,176 @@ import javax.inject.Inject;
 public class BookingCommandHandler {
 
     private static final String RESERVATION_CONFLICT = "Other reservation conflicts with the selected dates.";
+    private static final String LOCK_KEY_SEPARATOR = ":";
+    private static final String NEW_RESERVATION_ID = "";
+    private static final Long NO_FENCE = null;
 
     private final CustomerCommandHandler customerService;
     private final ReservationRepository reservationRepository;
+    private final UnitOfWork unitOfWork;
+    private final WriteBatcher writeBatcher;
     private final BookingValidationHandler bookingRules;
     private final LockHandler lockHandler;
+    private final OccupancyCalendar occupancyCalendar;
+    private final InventoryConfiguration inventoryConfig;
+    private final BookingConfiguration bookingConfig;
+    private final BookingMetrics bookingMetrics;
 
     @Inject
     public BookingCommandHandler(CustomerCommandHandler customerService, ReservationRepository reservationRepository,
-            LockHandler lockHandler, BookingValidationHandler bookingRules) {
+            UnitOfWork unitOfWork, WriteBatcher writeBatcher, LockHandler lockHandler,
+            BookingValidationHandler bookingRules, OccupancyCalendar occupancyCalendar,
+            InventoryConfiguration inventoryConfig, BookingConfiguration bookingConfig, BookingMetrics bookingMetrics) {
         this.customerService = customerService;
         this.reservationRepository = reservationRepository;
+        this.unitOfWork = unitOfWork;
+        this.writeBatcher = writeBatcher;
         this.lockHandler = lockHandler;
         this.bookingRules = bookingRules;
+        this.occupancyCalendar = occupancyCalendar;
+        this.inventoryConfig = inventoryConfig;
+        this.bookingConfig = bookingConfig;
+        this.bookingMetrics = bookingMetrics;
     }
 
-    public Uni<String> createReservationWithLock(ReservationCommand command) {
-        return bookingRules.validateRequest(command.getArrivalDate(), command.getDepartureDate()).onItem()
-                .transformToUni(isValid -> reservationExistsBetweenDates(command).onItem()
-                        .transformToUni(noConflict -> createWithLock(command)));
+    public Uni<String> createReservationWithLock(ReservationCommand command, StageTimings timings) {
+        String unitId = command.getUnitId() != null ? command.getUnitId() : inventoryConfig.getDefaultUnit();
+        return recorded(Command.CREATE, timings.timed(StageTimings.VALIDATE, () -> validateRequest(unitId, command))
+                .onItem().transformToUni(isValid -> isDatabaseMode()
+                        ? create(unitId, command, NO_FENCE, timings)
+                        : createWithLock(unitId, command, timings)));
     }
 
-    public Uni<String> updateReservationWithLock(String id, ReservationCommand command) {
-        return bookingRules.validateRequest(command.getArrivalDate(), command.getDepartureDate()).onItem()
-                .transformToUni(it -> reservationRepository.getById(id).onItem()
-                        .ifNull()
+    public Uni<String> updateReservationWithLock(String id, ReservationCommand command, StageTimings timings) {
+        return recorded(Command.UPDATE, timings.timed(StageTimings.VALIDATE,
+                () -> validateRequest(command.getUnitId(), command)).onItem()
+                .transformToUni(it -> timings.timed(StageTimings.LOAD, () -> reservationRepository.getById(id))
+                        .onItem().ifNull()
                         .failWith(() -> new ReservationNotFoundException(id)).onItem()
                         .ifNotNull()
-                        .transformToUni(reservation -> reservationExistsBetweenDates(id, command).onItem()
-                                .transformToUni(noConflict -> updateWithLock(reservation, command))));
+                        .transformToUni(reservation -> {
+                            String unitId = command.getUnitId() != null ? command.getUnitId() : reservation.unitId();
+                            return isDatabaseMode()
+                                    ? update(unitId, reservation, command, NO_FENCE, timings)
+                                    : updateWithLock(unitId, reservation, command, timings);
+                        })));
     }
 
     public Uni<String> deleteReservation(String id) {
-        return reservationRepository.getById(id).onItem()
+        return recorded(Command.DELETE, reservationRepository.getById(id).onItem()
                 .ifNull().failWith(() -> new ReservationNotFoundException(id))
-                .onItem().transformToUni(reservation -> delete(reservation.id()));
+                .onItem().transformToUni(reservation -> delete(reservation.id()).onItem()
+                        .invoke(deletedId -> occupancyCalendar.release(reservation.unitId(),
+                                reservation.arrivalDate(), reservation.departureDate()))));
+    }
+
+    private <T> Uni<T> recorded(Command command, Uni<T> execution) {
+        return execution.onTermination().invoke((item, failure, cancelled) -> {
+            if (!cancelled) {
+                bookingMetrics.recordCommand(command, failure);
+            }
+        });
+    }
+
+    private Uni<Void> validateRequest(String unitId, ReservationCommand command) {
+        return bookingRules.validateRequest(command.getArrivalDate(), command.getDepartureDate()).onItem()
+                .transformToUni(it -> bookingRules.validateUnit(unitId));
+    }
+
+    private boolean isDatabaseMode() {
+        // The reservation_nights key rejects double bookings on its own, no lock or conflict check is needed.
+        return BookingConfiguration.MODE_DATABASE.equals(bookingConfig.getMode());
     }
 
-    private List<String> getLockDates(ReservationCommand command) {
+    private List<String> getLockDates(String unitId, ReservationCommand command) {
         return DateUtil.getContinuousDates(command.getArrivalDate(), command.getDepartureDate()).stream()
-                .map(LocalDate::toString)
+                .map(date -> unitId + LOCK_KEY_SEPARATOR + date)
                 .collect(Collectors.toList());
     }
 
-    private Uni<String> createWithLock(ReservationCommand command) {
+    private Uni<String> createWithLock(String unitId, ReservationCommand command, StageTimings timings) {
+        long lockStartNanos = timings.begin();
         return lockHandler
-                .executeWithLock(getLockDates(command), () -> create(command))
+                .executeWithLock(getLockDates(unitId, command), fence -> {
+                    timings.end(StageTimings.LOCK, lockStartNanos, null);
+                    return create(unitId, command, fence, timings);
+                })
                 .onFailure(LockAcquireException.class)
-                .recoverWithUni(Uni.createFrom()
-                        .failure(() -> new ReservationConflictException(RESERVATION_CONFLICT)));
+                .transform(failure -> lockConflict(timings, lockStartNanos, failure));
     }
 
-    private Uni<String> updateWithLock(Reservation reservation, ReservationCommand command) {
+    private Uni<String> updateWithLock(String unitId, Reservation reservation, ReservationCommand command,
+            StageTimings timings) {
+        long lockStartNanos = timings.begin();
         return lockHandler
-                .executeWithLock(getLockDates(command), () -> update(reservation, command))
+                .executeWithLock(getLockDates(unitId, command), fence -> {
+                    timings.end(StageTimings.LOCK, lockStartNanos, null);
+                    return update(unitId, reservation, command, fence, timings);
+                })
                 .onFailure(LockAcquireException.class)
-                .recoverWithUni(Uni.createFrom()
-                        .failure(() -> new ReservationConflictException(RESERVATION_CONFLICT)));
+                .transform(failure -> lockConflict(timings, lockStartNanos, failure));
     }
 
-    private Uni<String> create(ReservationCommand command) {
-        return customerService.updateOrCreateCustomer(command.getEmail(), command.getFullName()).onItem()
-                .transformToUni(id -> {
+    private ReservationConflictException lockConflict(StageTimings timings, long lockStartNanos, Throwable failure) {
+        timings.end(StageTimings.LOCK, lockStartNanos, failure);
+        return new ReservationConflictException(RESERVATION_CONFLICT, failure);
+    }
+
+    private Uni<String> create(String unitId, ReservationCommand command, Long fence, StageTimings timings) {
+        return writeBatcher.submit(tx -> create(tx, unitId, command, fence, timings)).onItem()
+                .invoke(id -> occupancyCalendar.book(unitId, command.getArrivalDate(), command.getDepartureDate()));
+    }
+
+    private Uni<String> create(SqlClient tx, String unitId, ReservationCommand command, Long fence,
+            StageTimings timings) {
+        return reservationExistsBetweenDates(tx, unitId, NEW_RESERVATION_ID, command, timings).onItem()
+                .transformToUni(noConflict -> timings.timed(StageTimings.CUSTOMER,
+                        () -> customerService.updateOrCreateCustomer(tx, command.getEmail(), command.getFullName())))
+                .onItem().transformToUni(customerId -> {
                     Reservation reservation = Reservation.builder()
-                            .customerId(id)
+                            .customerId(customerId)
+                            .unitId(unitId)
                             .arrivalDate(command.getArrivalDate())
                             .departureDate(command.getDepartureDate())
+                            .fence(fence)
                             .build();
 
-                    return reservationRepository.save(reservation);
+                    return timings.timed(StageTimings.INSERT, () -> reservationRepository.save(tx, reservation));
                 });
     }
 
-    private Uni<String> update(Reservation reservation, ReservationCommand reservationCommand) {
+    private Uni<String> update(String unitId, Reservation reservation, ReservationCommand reservationCommand,
+            Long fence, StageTimings timings) {
         Reservation updatedReservation = Reservation.builder()
                 .id(reservation.id())
                 .customerId(reservation.customerId())
+                .unitId(unitId)
                 .arrivalDate(reservationCommand.getArrivalDate())
                 .departureDate(reservationCommand.getDepartureDate())
+                .fence(fence)
                 .build();
 
-        return customerService.updateCustomer(reservation.customerId(), reservationCommand.getEmail(),
-                reservationCommand.getFullName()).onItem()
-                .transformToUni(customer ->
-                        reservationRepository.update(updatedReservation).onItem()
-                                .transformToUni(postUpdate -> Uni.createFrom().item(postUpdate.id())));
+        // The cached copy is dropped once the transaction is over, committed or not, so no read can cache it again.
+        return unitOfWork.inTransaction(tx -> update(tx, updatedReservation, reservationCommand, timings))
+                .onItemOrFailure().invoke((id, failure) -> reservationRepository.invalidateCached(reservation.id()))
+                .onItem().invoke(id -> {
+                    occupancyCalendar.release(reservation.unitId(), reservation.arrivalDate(),
+                            reservation.departureDate());
+                    occupancyCalendar.book(unitId, updatedReservation.arrivalDate(),
+                            updatedReservation.departureDate());
+                });
+    }
+
+    private Uni<String> update(SqlClient tx, Reservation updatedReservation, ReservationCommand reservationCommand,
+            StageTimings timings) {
+        return reservationExistsBetweenDates(tx, updatedReservation.unitId(), updatedReservation.id(),
+                reservationCommand, timings).onItem()
+                .transformToUni(noConflict -> timings.timed(StageTimings.CUSTOMER,
+                        () -> customerService.updateCustomer(tx, updatedReservation.customerId(),
+                                reservationCommand.getEmail(), reservationCommand.getFullName()))).onItem()
+                .transformToUni(customer -> timings.timed(StageTimings.UPDATE,
+                        () -> reservationRepository.update(tx, updatedReservation))).onItem()
+                .transformToUni(postUpdate -> Uni.createFrom().item(postUpdate.id()));
     }
 
     private Uni<? extends String> delete(String id) {
@@ -119,19 +210,20 @@ public class BookingCommandHandler {
                 });
     }
 
-    private Uni<String> reservationExistsBetweenDates(ReservationCommand reservationCommand) {
-        return reservationExistsBetweenDates("", reservationCommand);
-    }
+    private Uni<Void> reservationExistsBetweenDates(SqlClient sqlClient, String unitId, String id,
+            ReservationCommand reservationCommand, StageTimings timings) {
+        if (isDatabaseMode()) {
+            return Uni.createFrom().voidItem();
+        }
 
-    private Uni<String> reservationExistsBetweenDates(String id, ReservationCommand reservationCommand) {
-        return reservationRepository.hasReservationBetween(id, reservationCommand.getArrivalDate(),
-                reservationCommand.getDepartureDate()).onItem().ifNotNull()
+        return timings.timed(StageTimings.CONFLICT_CHECK, () -> reservationRepository.hasReservationBetween(sqlClient,
+                unitId, id, reservationCommand.getArrivalDate(), reservationCommand.getDepartureDate())).onItem()
                 .transformToUni(hasReservation -> {
                     if (hasReservation) {
                         return Uni.createFrom().failure(() -> new ReservationConflictException(RESERVATION_CONFLICT));
                     }
 
-                    return Uni.createFrom().nullItem();
+                    return Uni.createFrom().voidItem();
                 });
     }
 }
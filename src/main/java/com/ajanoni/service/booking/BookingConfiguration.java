@@ -0,0 +1,22 @@
+package com.ajanoni.service.booking;
+
+import io.quarkus.arc.config.ConfigProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@ConfigProperties(prefix = "booking")
+@RegisterForReflection
+public class BookingConfiguration {
+
+    public static final String MODE_LOCK = "lock";
+    public static final String MODE_DATABASE = "database";
+
+    private String mode = MODE_LOCK;
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+}
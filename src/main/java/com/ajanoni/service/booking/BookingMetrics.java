@@ -0,0 +1,122 @@
+package com.ajanoni.service.booking;
+
+import com.ajanoni.common.Timings;
+import com.ajanoni.exception.LockAcquireException;
+import com.ajanoni.exception.ReservationConflictException;
+import com.ajanoni.exception.ReservationNotFoundException;
+import com.ajanoni.exception.ReservationRequestException;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.function.Supplier;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.validation.ValidationException;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+
+/**
+ * Booking command outcomes, schedule query latency and the days queried. Every metric is registered up front and
+ * recording only indexes arrays.
+ */
+@ApplicationScoped
+public class BookingMetrics {
+
+    public enum Command {
+        CREATE, UPDATE, DELETE
+    }
+
+    public enum Query {
+        DATES, RANGES, BATCH
+    }
+
+    enum Outcome {
+        SUCCESS, CONFLICT, VALIDATION_ERROR, LOCK_TIMEOUT, NOT_FOUND, ERROR
+    }
+
+    private static final Metadata COMMANDS = Metadata.builder()
+            .withName("booking.commands")
+            .withDescription("Booking commands by command and outcome.")
+            .withType(MetricType.COUNTER)
+            .build();
+    private static final Metadata SCHEDULE_QUERY = Metadata.builder()
+            .withName("booking.schedule.query")
+            .withDescription("Time to answer a schedule query.")
+            .withType(MetricType.TIMER)
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+    private static final Metadata SCHEDULE_WINDOW = Metadata.builder()
+            .withName("booking.schedule.window")
+            .withDescription("Days covered by a schedule query.")
+            .withType(MetricType.HISTOGRAM)
+            .withUnit(MetricUnits.NONE)
+            .build();
+
+    private final Counter[][] commandCounters = new Counter[Command.values().length][Outcome.values().length];
+    private final Timer[] queryTimers = new Timer[Query.values().length];
+    private final Histogram[] windowHistograms = new Histogram[Query.values().length];
+
+    @Inject
+    public BookingMetrics(MetricRegistry registry) {
+        for (Command command : Command.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                commandCounters[command.ordinal()][outcome.ordinal()] = registry.counter(COMMANDS,
+                        new Tag("command", tagValue(command)), new Tag("outcome", tagValue(outcome)));
+            }
+        }
+
+        for (Query query : Query.values()) {
+            Tag tag = new Tag("query", tagValue(query));
+            queryTimers[query.ordinal()] = registry.timer(SCHEDULE_QUERY, tag);
+            windowHistograms[query.ordinal()] = registry.histogram(SCHEDULE_WINDOW, tag);
+        }
+    }
+
+    public void recordCommand(Command command, Throwable failure) {
+        commandCounters[command.ordinal()][outcome(failure).ordinal()].inc();
+    }
+
+    public <T> Uni<T> timed(Query query, LocalDate startDate, LocalDate endDate, Supplier<Uni<T>> execution) {
+        recordWindow(query, startDate, endDate);
+        return Timings.timed(queryTimers[query.ordinal()], execution);
+    }
+
+    public <T> Multi<T> timedMulti(Query query, LocalDate startDate, LocalDate endDate,
+            Supplier<Multi<T>> execution) {
+        recordWindow(query, startDate, endDate);
+        return Timings.timedMulti(queryTimers[query.ordinal()], execution);
+    }
+
+    private void recordWindow(Query query, LocalDate startDate, LocalDate endDate) {
+        windowHistograms[query.ordinal()].update(ChronoUnit.DAYS.between(startDate, endDate) + 1);
+    }
+
+    static Outcome outcome(Throwable failure) {
+        if (failure == null) {
+            return Outcome.SUCCESS;
+        }
+        if (failure instanceof ReservationConflictException) {
+            return failure.getCause() instanceof LockAcquireException ? Outcome.LOCK_TIMEOUT : Outcome.CONFLICT;
+        }
+        if (failure instanceof ReservationRequestException || failure instanceof ValidationException) {
+            return Outcome.VALIDATION_ERROR;
+        }
+        if (failure instanceof ReservationNotFoundException) {
+            return Outcome.NOT_FOUND;
+        }
+
+        return Outcome.ERROR;
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
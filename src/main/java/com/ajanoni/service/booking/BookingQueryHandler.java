@@ -1,13 +1,33 @@
 package com.ajanoni.service.booking;
 
+import com.ajanoni.common.DateRange;
 import com.ajanoni.common.DateUtil;
 import com.ajanoni.dto.AvailableDateResult;
+import com.ajanoni.dto.AvailableRangeResult;
+import com.ajanoni.dto.DateRangeResult;
+import com.ajanoni.dto.ScheduleBatchQuery;
+import com.ajanoni.dto.ScheduleChangeResult;
+import com.ajanoni.dto.ScheduleWindow;
+import com.ajanoni.dto.ScheduleWindowResult;
 import com.ajanoni.repository.ReservationRepository;
+import com.ajanoni.service.booking.BookingMetrics.Query;
+import com.ajanoni.service.calendar.CalendarChange;
+import com.ajanoni.service.calendar.CalendarChangeFeed;
+import com.ajanoni.service.calendar.OccupancyCalendar;
+import com.ajanoni.service.inventory.InventoryConfiguration;
 import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -18,36 +38,187 @@ public class BookingQueryHandler {
 
     private final ReservationRepository reservationRepository;
     private final BookingValidationHandler bookingRules;
+    private final OccupancyCalendar occupancyCalendar;
+    private final CalendarChangeFeed calendarChangeFeed;
+    private final InventoryConfiguration inventoryConfig;
+    private final BookingMetrics bookingMetrics;
 
     @Inject
     public BookingQueryHandler(ReservationRepository reservationRepository,
-            BookingValidationHandler bookingRules) {
+            BookingValidationHandler bookingRules, OccupancyCalendar occupancyCalendar,
+            CalendarChangeFeed calendarChangeFeed, InventoryConfiguration inventoryConfig,
+            BookingMetrics bookingMetrics) {
         this.reservationRepository = reservationRepository;
         this.bookingRules = bookingRules;
+        this.occupancyCalendar = occupancyCalendar;
+        this.calendarChangeFeed = calendarChangeFeed;
+        this.inventoryConfig = inventoryConfig;
+        this.bookingMetrics = bookingMetrics;
     }
 
-    public Multi<AvailableDateResult> getAvailableDates(LocalDate startDate, LocalDate endDate) {
-        LocalDate localStartDate = startDate != null ? startDate : LocalDate.now();
-        LocalDate localEndDate = endDate != null ? endDate : localStartDate.plusMonths(1);
+    public Multi<AvailableDateResult> getAvailableDates(String unitId, LocalDate startDate, LocalDate endDate) {
+        LocalDate localStartDate = getStartDate(startDate);
+        LocalDate localEndDate = getEndDate(localStartDate, endDate);
 
+        return bookingMetrics.timedMulti(Query.DATES, localStartDate, localEndDate, () ->
+                validateQuery(unitId, localStartDate, localEndDate).onItem()
+                        .transformToUni(it -> getAvailableDateResults(unitId, localStartDate, localEndDate)).onItem()
+                        .transformToMulti(results -> Multi.createFrom().iterable(results.values())));
+    }
+
+    public Uni<List<ScheduleWindowResult>> getAvailableDates(ScheduleBatchQuery query) {
+        List<ScheduleWindow> windows = query.getWindows();
+        LocalDate coveringStartDate = windows.stream().map(ScheduleWindow::getStartDate)
+                .min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate coveringEndDate = windows.stream().map(ScheduleWindow::getEndDate)
+                .max(Comparator.naturalOrder()).orElseThrow();
+
+        return bookingMetrics.timed(Query.BATCH, coveringStartDate, coveringEndDate, () ->
+                validateWindows(query.getUnitId(), windows, coveringStartDate, coveringEndDate).onItem()
+                        .transformToUni(it -> getAvailableDateResults(query.getUnitId(), coveringStartDate,
+                                coveringEndDate)).onItem()
+                        .transform(results -> windows.stream()
+                                .map(window -> new ScheduleWindowResult(window.getStartDate(), window.getEndDate(),
+                                        new ArrayList<>(results.subMap(window.getStartDate(), true,
+                                                window.getEndDate(), true).values())))
+                                .collect(Collectors.toList())));
+    }
+
+    public Multi<AvailableRangeResult> getAvailableRanges(String unitId, LocalDate startDate, LocalDate endDate) {
+        LocalDate localStartDate = getStartDate(startDate);
+        LocalDate localEndDate = getEndDate(localStartDate, endDate);
+
+        return bookingMetrics.timedMulti(Query.RANGES, localStartDate, localEndDate, () ->
+                validateQuery(unitId, localStartDate, localEndDate).onItem()
+                        .transformToUni(it -> unitId != null
+                                ? getUnitAvailableRanges(unitId, localStartDate, localEndDate)
+                                : getAnyUnitAvailableRanges(localStartDate, localEndDate)).onItem()
+                        .transformToMulti(ranges -> Multi.createFrom().iterable(ranges))
+                        .map(range -> new AvailableRangeResult(range.startDate(), range.endDate())));
+    }
+
+    public Multi<ScheduleChangeResult> getScheduleChanges(String lastChangeId) {
+        return calendarChangeFeed.getChanges(lastChangeId)
+                .map(this::toScheduleChangeResult);
+    }
+
+    private Uni<Void> validateQuery(String unitId, LocalDate localStartDate, LocalDate localEndDate) {
         return bookingRules.validateQuery(localStartDate, localEndDate).onItem()
-                .transformToMulti(it -> {
-                    List<LocalDate> reservedDates = getReservedDates(localStartDate, localEndDate);
+                .transformToUni(it -> bookingRules.validateUnit(unitId));
+    }
+
+    private Uni<Void> validateWindows(String unitId, List<ScheduleWindow> windows, LocalDate coveringStartDate,
+            LocalDate coveringEndDate) {
+        List<Uni<Void>> validations = windows.stream()
+                .map(window -> bookingRules.validateQuery(window.getStartDate(), window.getEndDate()))
+                .collect(Collectors.toList());
 
-                    Stream<AvailableDateResult> resultStream = DateUtil.getContinuousDates(localStartDate,
-                            localEndDate).stream()
-                            .filter(date -> !reservedDates.contains(date))
-                            .map(AvailableDateResult::new);
+        return bookingRules.validateBatchSpan(coveringStartDate, coveringEndDate).onItem()
+                .transformToUni(it -> Uni.combine().all().unis(validations).combinedWith(results -> null)).onItem()
+                .transformToUni(it -> bookingRules.validateUnit(unitId));
+    }
 
-                    return Multi.createFrom().items(resultStream);
+    private Uni<NavigableMap<LocalDate, AvailableDateResult>> getAvailableDateResults(String unitId,
+            LocalDate localStartDate, LocalDate localEndDate) {
+        // Free unit counts are only given when there is more than one unit to pick from.
+        List<String> configuredUnits = inventoryConfig.getUnits();
+        String selectedUnitId = unitId == null && configuredUnits.size() == 1 ? configuredUnits.get(0) : unitId;
+        if (selectedUnitId != null) {
+            return getUnitAvailableDates(selectedUnitId, localStartDate, localEndDate).onItem()
+                    .transform(dates -> {
+                        NavigableMap<LocalDate, AvailableDateResult> results = new TreeMap<>();
+                        dates.forEach(date -> results.put(date, new AvailableDateResult(date)));
+                        return results;
+                    });
+        }
+
+        return getFreeUnits(localStartDate, localEndDate).onItem()
+                .transform(freeUnits -> {
+                    NavigableMap<LocalDate, AvailableDateResult> results = new TreeMap<>();
+                    freeUnits.forEach((date, units) -> results.put(date, new AvailableDateResult(date, units)));
+                    return results;
                 });
     }
 
-    private List<LocalDate> getReservedDates(LocalDate localStartDate, LocalDate localEndDate) {
+    private ScheduleChangeResult toScheduleChangeResult(CalendarChange change) {
+        return new ScheduleChangeResult(change.id(), change.reset(), change.unitId(),
+                toDateRangeResult(change.booked()), toDateRangeResult(change.released()));
+    }
+
+    private DateRangeResult toDateRangeResult(DateRange range) {
+        return range != null ? new DateRangeResult(range.startDate(), range.endDate()) : null;
+    }
+
+    private LocalDate getStartDate(LocalDate startDate) {
+        return startDate != null ? startDate : LocalDate.now();
+    }
+
+    private LocalDate getEndDate(LocalDate localStartDate, LocalDate endDate) {
+        return endDate != null ? endDate : localStartDate.plusMonths(1);
+    }
+
+    private Uni<Map<LocalDate, Integer>> getFreeUnits(LocalDate localStartDate, LocalDate localEndDate) {
+        List<Uni<List<LocalDate>>> unitDates = inventoryConfig.getUnits().stream()
+                .map(unitId -> getUnitAvailableDates(unitId, localStartDate, localEndDate))
+                .collect(Collectors.toList());
+
+        return Uni.combine().all().unis(unitDates).combinedWith(results -> {
+            Map<LocalDate, Integer> freeUnits = new TreeMap<>();
+            results.forEach(dates -> ((List<?>) dates)
+                    .forEach(date -> freeUnits.merge((LocalDate) date, 1, Integer::sum)));
+            return freeUnits;
+        });
+    }
+
+    private Uni<List<DateRange>> getAnyUnitAvailableRanges(LocalDate localStartDate, LocalDate localEndDate) {
+        List<Uni<List<DateRange>>> unitRanges = inventoryConfig.getUnits().stream()
+                .map(unitId -> getUnitAvailableRanges(unitId, localStartDate, localEndDate))
+                .collect(Collectors.toList());
+
+        return Uni.combine().all().unis(unitRanges).combinedWith(results -> {
+            List<DateRange> ranges = new ArrayList<>();
+            results.forEach(unitResult -> ((List<?>) unitResult).forEach(range -> ranges.add((DateRange) range)));
+            return DateUtil.getMergedRanges(ranges);
+        });
+    }
+
+    private Uni<List<LocalDate>> getUnitAvailableDates(String unitId, LocalDate localStartDate,
+            LocalDate localEndDate) {
+        return occupancyCalendar.getAvailableDates(unitId, localStartDate, localEndDate)
+                .map(dates -> Uni.createFrom().item(dates))
+                .orElseGet(() -> getAvailableDatesFromRepository(unitId, localStartDate, localEndDate));
+    }
+
+    private Uni<List<DateRange>> getUnitAvailableRanges(String unitId, LocalDate localStartDate,
+            LocalDate localEndDate) {
+        return occupancyCalendar.getAvailableRanges(unitId, localStartDate, localEndDate)
+                .map(ranges -> Uni.createFrom().item(ranges))
+                .orElseGet(() -> getAvailableRangesFromRepository(unitId, localStartDate, localEndDate));
+    }
+
+    private Uni<List<DateRange>> getAvailableRangesFromRepository(String unitId, LocalDate localStartDate,
+            LocalDate localEndDate) {
         return reservationRepository
-                .getReservedDates(localStartDate, localEndDate)
+                .getReservedRanges(unitId, localStartDate, localEndDate)
                 .collectItems().asList()
-                .await().atMost(REQUEST_TIMEOUT);
+                .ifNoItem().after(REQUEST_TIMEOUT).fail().onItem()
+                .transform(reservedRanges -> DateUtil.getUncoveredRanges(localStartDate, localEndDate,
+                        reservedRanges));
+    }
+
+    private Uni<List<LocalDate>> getAvailableDatesFromRepository(String unitId, LocalDate localStartDate,
+            LocalDate localEndDate) {
+        return getReservedDates(unitId, localStartDate, localEndDate).onItem()
+                .transform(reservedDates -> DateUtil.getContinuousDates(localStartDate, localEndDate).stream()
+                        .filter(date -> !reservedDates.contains(date))
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    private Uni<Set<LocalDate>> getReservedDates(String unitId, LocalDate localStartDate, LocalDate localEndDate) {
+        return reservationRepository
+                .getReservedDates(unitId, localStartDate, localEndDate)
+                .collectItems().<Set<LocalDate>>in(HashSet::new, Set::add)
+                .ifNoItem().after(REQUEST_TIMEOUT).fail();
     }
 
 }
@@ -1,6 +1,7 @@
 package com.ajanoni.service.booking;
 
 import com.ajanoni.exception.ReservationRequestException;
+import com.ajanoni.service.inventory.InventoryConfiguration;
 import io.smallrye.mutiny.Uni;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
@@ -8,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import org.apache.commons.collections4.CollectionUtils;
 
 @ApplicationScoped
@@ -26,6 +28,17 @@ public class BookingValidationHandler {
     private static final String QUERY_MAXIMUM_PERIOD = "Maximum of 6 months between start date and end date allowed.";
     private static final String QUERY_DATES_ORDER = "The end date should be equal to or after start date.";
     private static final String QUERY_START_DAY = "Selection must start from today.";
+    private static final String QUERY_BATCH_PERIOD = "Maximum of 6 months between the first and the last window "
+            + "allowed.";
+
+    private static final String UNKNOWN_UNIT = "Unknown unit.";
+
+    private final InventoryConfiguration inventoryConfig;
+
+    @Inject
+    public BookingValidationHandler(InventoryConfiguration inventoryConfig) {
+        this.inventoryConfig = inventoryConfig;
+    }
 
     Uni<Void> validateQuery(LocalDate startDate, LocalDate endDate) {
         return checkDatesOrder(startDate, endDate, QUERY_DATES_ORDER).onItem().transformToUni(it -> {
@@ -41,6 +54,17 @@ public class BookingValidationHandler {
         );
     }
 
+    /**
+     * A batch is read over the span covering all its windows, which is held to the limit of a single query.
+     */
+    Uni<Void> validateBatchSpan(LocalDate coveringStartDate, LocalDate coveringEndDate) {
+        if (checkMaximumSelection(coveringStartDate, coveringEndDate).isPresent()) {
+            return Uni.createFrom().failure(() -> new ReservationRequestException(QUERY_BATCH_PERIOD));
+        }
+
+        return Uni.createFrom().voidItem();
+    }
+
     Uni<Void> validateRequest(LocalDate arrivalDate, LocalDate departureDate) {
         return checkDatesOrder(arrivalDate, departureDate, REQUEST_DATES_ORDER).onItem().transformToUni(it -> {
             List<String> messages = new ArrayList<>();
@@ -56,6 +80,14 @@ public class BookingValidationHandler {
         });
     }
 
+    Uni<Void> validateUnit(String unitId) {
+        if (unitId != null && !inventoryConfig.hasUnit(unitId)) {
+            return Uni.createFrom().failure(() -> new ReservationRequestException(UNKNOWN_UNIT));
+        }
+
+        return Uni.createFrom().voidItem();
+    }
+
     private Optional<String> checkMaximumSelection(LocalDate startDate, LocalDate endDate) {
         long monthsDiff = ChronoUnit.MONTHS.between(startDate, endDate);
         if (monthsDiff >= MAX_QUERY_MONTHS) {
@@ -0,0 +1,24 @@
+package com.ajanoni.service.calendar;
+
+import com.ajanoni.common.DateRange;
+import lombok.Builder;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+@Value
+@Builder
+@Accessors(fluent = true)
+public class CalendarChange {
+
+    private final String instanceTag;
+    private final long version;
+    private final boolean reset;
+    private final String unitId;
+    private final DateRange booked;
+    private final DateRange released;
+
+    public String id() {
+        return instanceTag + "-" + version;
+    }
+
+}
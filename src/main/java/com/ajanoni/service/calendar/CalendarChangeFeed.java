@@ -0,0 +1,194 @@
+package com.ajanoni.service.calendar;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Fan-out of calendar changes to long-lived subscribers, keeping a bounded history so reconnecting subscribers
+ * can resume from the id of the last change they received.
+ * <p>
+ * Changes are observed inside the calendar update, so observing only appends to the history and schedules a
+ * dispatch that serves the subscribers off the write path. Each subscriber buffers at most one history of changes,
+ * one that falls further behind is failed and resumes from its last change id when it reconnects.
+ */
+@ApplicationScoped
+public class CalendarChangeFeed {
+
+    private static final String ID_SEPARATOR = "-";
+
+    private final OccupancyCalendar occupancyCalendar;
+    private final int historySize;
+    private final Executor dispatchExecutor;
+    private final Deque<CalendarChange> history = new ArrayDeque<>();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+
+    private long dispatchedVersion;
+
+    @Inject
+    public CalendarChangeFeed(OccupancyCalendar occupancyCalendar, CalendarConfiguration calendarConfig) {
+        this(occupancyCalendar, calendarConfig, Infrastructure.getDefaultExecutor());
+    }
+
+    CalendarChangeFeed(OccupancyCalendar occupancyCalendar, CalendarConfiguration calendarConfig,
+            Executor dispatchExecutor) {
+        this.occupancyCalendar = occupancyCalendar;
+        this.historySize = calendarConfig.getFeedHistorySize();
+        this.dispatchExecutor = dispatchExecutor;
+        this.dispatchedVersion = occupancyCalendar.getVersion();
+    }
+
+    void onChange(@Observes CalendarChange change) {
+        synchronized (history) {
+            history.addLast(change);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+        }
+
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            dispatchExecutor.execute(this::dispatch);
+        }
+    }
+
+    public Multi<CalendarChange> getChanges(String lastChangeId) {
+        return Multi.createFrom().<CalendarChange>emitter(emitter -> {
+            Subscriber subscriber = new Subscriber(emitter);
+            synchronized (subscribers) {
+                List<CalendarChange> missedChanges = getMissedChanges(lastChangeId);
+                missedChanges.forEach(emitter::emit);
+                subscriber.lastVersion = missedChanges.isEmpty()
+                        ? dispatchedVersion
+                        : Math.max(dispatchedVersion, missedChanges.get(missedChanges.size() - 1).version());
+                subscribers.add(subscriber);
+            }
+
+            emitter.onTermination(() -> removeSubscriber(subscriber));
+        }).onOverflow().buffer(historySize);
+    }
+
+    private void dispatch() {
+        // Cleared before reading, a change added from here on schedules another dispatch.
+        dispatchScheduled.set(false);
+        synchronized (subscribers) {
+            List<CalendarChange> changes = getChangesAfter(dispatchedVersion);
+            if (changes.isEmpty()) {
+                return;
+            }
+
+            new ArrayList<>(subscribers).forEach(subscriber -> subscriber.deliver(changes));
+            dispatchedVersion = changes.get(changes.size() - 1).version();
+        }
+    }
+
+    private void removeSubscriber(Subscriber subscriber) {
+        synchronized (subscribers) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private List<CalendarChange> getChangesAfter(long version) {
+        List<CalendarChange> changes = new ArrayList<>();
+        synchronized (history) {
+            Iterator<CalendarChange> newestFirst = history.descendingIterator();
+            while (newestFirst.hasNext()) {
+                CalendarChange change = newestFirst.next();
+                if (change.version() <= version) {
+                    break;
+                }
+                changes.add(change);
+            }
+        }
+
+        Collections.reverse(changes);
+        return changes;
+    }
+
+    private List<CalendarChange> getMissedChanges(String lastChangeId) {
+        if (lastChangeId == null || lastChangeId.isBlank()) {
+            return List.of();
+        }
+
+        synchronized (history) {
+            long currentVersion = history.isEmpty() ? occupancyCalendar.getVersion() : history.getLast().version();
+            Optional<Long> lastVersion = parseVersion(lastChangeId);
+            if (lastVersion.isPresent() && lastVersion.get() >= currentVersion) {
+                return List.of();
+            }
+
+            boolean replayable = lastVersion.isPresent() && !history.isEmpty()
+                    && history.getFirst().version() <= lastVersion.get() + 1;
+            if (!replayable) {
+                return List.of(reset(currentVersion));
+            }
+
+            return history.stream()
+                    .filter(change -> change.version() > lastVersion.get())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private CalendarChange reset(long version) {
+        return CalendarChange.builder()
+                .instanceTag(occupancyCalendar.getInstanceTag())
+                .version(version)
+                .reset(true)
+                .build();
+    }
+
+    private Optional<Long> parseVersion(String changeId) {
+        String[] parts = changeId.split(ID_SEPARATOR);
+        if (parts.length < 2 || !parts[0].equals(occupancyCalendar.getInstanceTag())) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private final class Subscriber {
+
+        private final MultiEmitter<? super CalendarChange> emitter;
+        private long lastVersion;
+
+        private Subscriber(MultiEmitter<? super CalendarChange> emitter) {
+            this.emitter = emitter;
+        }
+
+        private void deliver(List<CalendarChange> changes) {
+            CalendarChange newest = changes.get(changes.size() - 1);
+            if (newest.version() <= lastVersion) {
+                return;
+            }
+
+            // Changes dropped from the history before they were dispatched can only be replaced by a reset.
+            if (changes.get(0).version() > lastVersion + 1) {
+                emitter.emit(reset(newest.version()));
+                lastVersion = newest.version();
+                return;
+            }
+
+            changes.stream()
+                    .filter(change -> change.version() > lastVersion)
+                    .forEach(emitter::emit);
+            lastVersion = newest.version();
+        }
+    }
+}
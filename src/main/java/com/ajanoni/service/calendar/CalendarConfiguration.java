@@ -0,0 +1,37 @@
+package com.ajanoni.service.calendar;
+
+import io.quarkus.arc.config.ConfigProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@ConfigProperties(prefix = "calendar")
+@RegisterForReflection
+public class CalendarConfiguration {
+
+    private int horizonDays = 366;
+    private int feedHistorySize = 1024;
+    private boolean singleNode = true;
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    public void setHorizonDays(int horizonDays) {
+        this.horizonDays = horizonDays;
+    }
+
+    public int getFeedHistorySize() {
+        return feedHistorySize;
+    }
+
+    public void setFeedHistorySize(int feedHistorySize) {
+        this.feedHistorySize = feedHistorySize;
+    }
+
+    public boolean isSingleNode() {
+        return singleNode;
+    }
+
+    public void setSingleNode(boolean singleNode) {
+        this.singleNode = singleNode;
+    }
+}
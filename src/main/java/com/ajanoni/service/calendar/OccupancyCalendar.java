@@ -0,0 +1,256 @@
+package com.ajanoni.service.calendar;
+
+import com.ajanoni.common.DateRange;
+import com.ajanoni.repository.ReservationRepository;
+import com.ajanoni.service.inventory.InventoryConfiguration;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Day-indexed occupancy bitmaps of the bookable horizon, one per unit. Writes copy the bitmap of the unit they
+ * touch so reads never need a lock.
+ * <p>
+ * Only writes made through this instance reach the bitmaps between reconciliations, so they are only loaded for
+ * single-node deployments. Otherwise every read falls back to the database.
+ */
+@ApplicationScoped
+public class OccupancyCalendar {
+
+    private static final Logger LOG = Logger.getLogger(OccupancyCalendar.class);
+
+    private final ReservationRepository reservationRepository;
+    private final CalendarConfiguration calendarConfig;
+    private final InventoryConfiguration inventoryConfig;
+    private final Event<CalendarChange> changeEvent;
+    private final String instanceTag = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private volatile Map<String, Snapshot> snapshots;
+    private volatile long version;
+
+    @Inject
+    public OccupancyCalendar(ReservationRepository reservationRepository, CalendarConfiguration calendarConfig,
+            InventoryConfiguration inventoryConfig, Event<CalendarChange> changeEvent) {
+        this.reservationRepository = reservationRepository;
+        this.calendarConfig = calendarConfig;
+        this.inventoryConfig = inventoryConfig;
+        this.changeEvent = changeEvent;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        reconcile();
+    }
+
+    @Scheduled(every = "{calendar.reconcile-every}")
+    void reconcile() {
+        if (!calendarConfig.isSingleNode()) {
+            return;
+        }
+
+        rebuild().subscribe().with(
+                drift -> {
+                    if (drift) {
+                        LOG.warn("Occupancy calendar was out of sync with the database and has been reloaded.");
+                    }
+                },
+                failure -> LOG.warn("Unable to load the occupancy calendar.", failure));
+    }
+
+    public Optional<List<LocalDate>> getAvailableDates(String unitId, LocalDate startDate, LocalDate endDate) {
+        Snapshot current = getSnapshot(unitId);
+        if (current == null || !current.covers(startDate, endDate)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(current.availableDates(startDate, endDate));
+    }
+
+    public Optional<List<DateRange>> getAvailableRanges(String unitId, LocalDate startDate, LocalDate endDate) {
+        Snapshot current = getSnapshot(unitId);
+        if (current == null || !current.covers(startDate, endDate)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(current.availableRanges(startDate, endDate));
+    }
+
+    public String getVersionTag() {
+        return instanceTag + "-" + version + "-" + LocalDate.now().toEpochDay();
+    }
+
+    public String getInstanceTag() {
+        return instanceTag;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void book(String unitId, LocalDate arrivalDate, LocalDate departureDate) {
+        update(unitId, arrivalDate, departureDate, true);
+    }
+
+    public void release(String unitId, LocalDate arrivalDate, LocalDate departureDate) {
+        update(unitId, arrivalDate, departureDate, false);
+    }
+
+    Uni<Boolean> rebuild() {
+        long firstDay = LocalDate.now().toEpochDay();
+        int days = calendarConfig.getHorizonDays();
+        long versionAtStart = version;
+        List<String> units = inventoryConfig.getUnits();
+        List<Uni<Snapshot>> loads = units.stream()
+                .map(unitId -> load(unitId, firstDay, days))
+                .collect(Collectors.toList());
+
+        return Uni.combine().all().unis(loads).combinedWith(loaded -> {
+            Map<String, Snapshot> loadedSnapshots = new HashMap<>();
+            for (int i = 0; i < units.size(); i++) {
+                loadedSnapshots.put(units.get(i), (Snapshot) loaded.get(i));
+            }
+            return loadedSnapshots;
+        }).onItem().transform(loaded -> swap(loaded, versionAtStart));
+    }
+
+    private Uni<Snapshot> load(String unitId, long firstDay, int days) {
+        return reservationRepository
+                .getReservedDates(unitId, LocalDate.ofEpochDay(firstDay), LocalDate.ofEpochDay(firstDay + days - 1))
+                .collectItems()
+                .in(() -> new BitSet(days), (bits, date) -> bits.set((int) (date.toEpochDay() - firstDay)))
+                .onItem().transform(bits -> new Snapshot(firstDay, days, bits));
+    }
+
+    private Snapshot getSnapshot(String unitId) {
+        Map<String, Snapshot> current = snapshots;
+        return current != null ? current.get(unitId) : null;
+    }
+
+    private synchronized void update(String unitId, LocalDate arrivalDate, LocalDate departureDate,
+            boolean reserved) {
+        version++;
+        Snapshot current = getSnapshot(unitId);
+        if (current != null) {
+            Map<String, Snapshot> updated = new HashMap<>(snapshots);
+            updated.put(unitId, current.with(arrivalDate, departureDate, reserved));
+            snapshots = updated;
+        }
+
+        DateRange range = new DateRange(arrivalDate, departureDate);
+        changeEvent.fire(CalendarChange.builder()
+                .instanceTag(instanceTag)
+                .version(version)
+                .unitId(unitId)
+                .booked(reserved ? range : null)
+                .released(reserved ? null : range)
+                .build());
+    }
+
+    private synchronized boolean swap(Map<String, Snapshot> loaded, long versionAtStart) {
+        if (version != versionAtStart) {
+            LOG.debug("Reservations changed while loading the occupancy calendar, keeping the current one.");
+            return false;
+        }
+
+        boolean drift = snapshots != null && !matches(snapshots, loaded);
+        snapshots = loaded;
+        if (drift) {
+            version++;
+            changeEvent.fire(CalendarChange.builder()
+                    .instanceTag(instanceTag)
+                    .version(version)
+                    .reset(true)
+                    .build());
+        }
+
+        return drift;
+    }
+
+    private static boolean matches(Map<String, Snapshot> current, Map<String, Snapshot> loaded) {
+        return current.keySet().equals(loaded.keySet()) && loaded.entrySet().stream()
+                .allMatch(entry -> current.get(entry.getKey()).matches(entry.getValue()));
+    }
+
+    private static final class Snapshot {
+
+        private final long firstDay;
+        private final int days;
+        private final BitSet reserved;
+
+        private Snapshot(long firstDay, int days, BitSet reserved) {
+            this.firstDay = firstDay;
+            this.days = days;
+            this.reserved = reserved;
+        }
+
+        private boolean covers(LocalDate startDate, LocalDate endDate) {
+            return startDate.toEpochDay() >= firstDay && endDate.toEpochDay() < firstDay + days;
+        }
+
+        private List<LocalDate> availableDates(LocalDate startDate, LocalDate endDate) {
+            int last = index(endDate.toEpochDay());
+            List<LocalDate> dates = new ArrayList<>();
+            for (int day = reserved.nextClearBit(index(startDate.toEpochDay())); day <= last;
+                    day = reserved.nextClearBit(day + 1)) {
+                dates.add(LocalDate.ofEpochDay(firstDay + day));
+            }
+
+            return dates;
+        }
+
+        private List<DateRange> availableRanges(LocalDate startDate, LocalDate endDate) {
+            int last = index(endDate.toEpochDay());
+            List<DateRange> ranges = new ArrayList<>();
+            int from = reserved.nextClearBit(index(startDate.toEpochDay()));
+            while (from <= last) {
+                int nextReserved = reserved.nextSetBit(from);
+                int to = nextReserved < 0 || nextReserved > last ? last : nextReserved - 1;
+                ranges.add(new DateRange(LocalDate.ofEpochDay(firstDay + from), LocalDate.ofEpochDay(firstDay + to)));
+                from = reserved.nextClearBit(to + 1);
+            }
+
+            return ranges;
+        }
+
+        private Snapshot with(LocalDate arrivalDate, LocalDate departureDate, boolean value) {
+            long from = Math.max(arrivalDate.toEpochDay(), firstDay);
+            long to = Math.min(departureDate.toEpochDay(), firstDay + days - 1);
+            if (from > to) {
+                return this;
+            }
+
+            BitSet bits = (BitSet) reserved.clone();
+            bits.set(index(from), index(to) + 1, value);
+            return new Snapshot(firstDay, days, bits);
+        }
+
+        private boolean matches(Snapshot other) {
+            long from = Math.max(firstDay, other.firstDay);
+            long to = Math.min(firstDay + days, other.firstDay + other.days);
+            for (long day = from; day < to; day++) {
+                if (reserved.get(index(day)) != other.reserved.get(other.index(day))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private int index(long epochDay) {
+            return (int) (epochDay - firstDay);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.ajanoni.service.customer;
 import com.ajanoni.repository.model.Customer;
 import com.ajanoni.repository.CustomerRepository;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.SqlClient;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -16,39 +17,23 @@ public class CustomerCommandHandler {
         this.customerRepository = customerRepository;
     }
 
-    public Uni<String> updateOrCreateCustomer(String email, String fullName) {
-        return getCustomerByEmail(email).onItem()
-                .ifNotNull()
-                .transformToUni(id -> updateCustomer(id, email, fullName))
-                .onItem()
-                .ifNull()
-                .switchTo(() -> createCustomer(email, fullName));
-
-    }
-
-    public Uni<String> updateCustomer(String customerId, String email, String fullName) {
-        Customer updateCustomer = Customer.builder()
-                .id(customerId)
+    public Uni<String> updateOrCreateCustomer(SqlClient sqlClient, String email, String fullName) {
+        Customer customer = Customer.builder()
                 .email(email)
                 .fullName(fullName)
                 .build();
 
-        return customerRepository.update(updateCustomer).onItem()
-                .transformToUni(customer -> Uni.createFrom().item(customer.id()));
+        return customerRepository.upsert(sqlClient, customer);
     }
 
-    private Uni<String> createCustomer(String email, String fullName) {
-        Customer customer = Customer.builder()
+    public Uni<String> updateCustomer(SqlClient sqlClient, String customerId, String email, String fullName) {
+        Customer updateCustomer = Customer.builder()
+                .id(customerId)
                 .email(email)
                 .fullName(fullName)
                 .build();
 
-        return customerRepository.save(customer);
-    }
-
-    private Uni<String> getCustomerByEmail(String email) {
-        return customerRepository.getByEmail(email).onItem()
-                .ifNotNull()
+        return customerRepository.update(sqlClient, updateCustomer).onItem()
                 .transformToUni(customer -> Uni.createFrom().item(customer.id()));
     }
 
@@ -0,0 +1,34 @@
+package com.ajanoni.service.inventory;
+
+import io.quarkus.arc.config.ConfigProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.util.Collections;
+import java.util.List;
+
+@ConfigProperties(prefix = "inventory")
+@RegisterForReflection
+public class InventoryConfiguration {
+
+    private List<String> units = List.of("default");
+    private String defaultUnit = "default";
+
+    public List<String> getUnits() {
+        return Collections.unmodifiableList(units);
+    }
+
+    public void setUnits(List<String> units) {
+        this.units = units;
+    }
+
+    public String getDefaultUnit() {
+        return defaultUnit;
+    }
+
+    public void setDefaultUnit(String defaultUnit) {
+        this.defaultUnit = defaultUnit;
+    }
+
+    public boolean hasUnit(String unitId) {
+        return units.contains(unitId);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ajanoni.service.lock;
+
+import com.ajanoni.dto.HeldLockResult;
+import com.ajanoni.dto.LockCountResult;
+import com.ajanoni.dto.LockDiagnosticsResult;
+import com.ajanoni.lock.HeldLock;
+import com.ajanoni.lock.LockDiagnostics;
+import com.ajanoni.lock.LockHandler;
+import io.smallrye.mutiny.Uni;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+@ApplicationScoped
+public class LockDiagnosticsQueryHandler {
+
+    private final LockHandler lockHandler;
+    private final LockDiagnostics lockDiagnostics;
+
+    @Inject
+    public LockDiagnosticsQueryHandler(LockHandler lockHandler, LockDiagnostics lockDiagnostics) {
+        this.lockHandler = lockHandler;
+        this.lockDiagnostics = lockDiagnostics;
+    }
+
+    public Uni<LockDiagnosticsResult> getDiagnostics(int limit) {
+        return lockHandler.getHeldLocks(limit).onItem().transform(heldLocks -> new LockDiagnosticsResult(
+                lockDiagnostics.getWindow().toSeconds(),
+                toHeldLockResults(heldLocks, lockDiagnostics.getHeld()),
+                toLockCountResults(lockDiagnostics.getTimeouts(limit)),
+                toLockCountResults(lockDiagnostics.getHottest(limit))));
+    }
+
+    private List<HeldLockResult> toHeldLockResults(List<HeldLock> heldLocks,
+            Map<String, LockDiagnostics.HeldName> ownHeld) {
+        // Names held elsewhere, or by an owner that stopped, have no local holder and wait for their lease to end.
+        return heldLocks.stream()
+                .map(heldLock -> {
+                    LockDiagnostics.HeldName own = ownHeld.get(heldLock.name());
+                    return new HeldLockResult(heldLock.name(), heldLock.leaseRemaining().toMillis(),
+                            own != null ? own.heldFor().toMillis() : null, own != null ? own.fence() : null);
+                })
+                .sorted(Comparator.comparing(HeldLockResult::getName))
+                .collect(Collectors.toList());
+    }
+
+    private List<LockCountResult> toLockCountResults(List<LockDiagnostics.NameCount> counts) {
+        return counts.stream()
+                .map(count -> new LockCountResult(count.name(), count.count()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package com.ajanoni.tracing;
+
+import com.ajanoni.tracing.StageTimings.Stage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Appends spans to a local file as JSON lines. Writes happen on one background thread behind a bounded queue,
+ * spans are dropped rather than slowing requests down when the file can not keep up.
+ */
+@ApplicationScoped
+@Typed(FileSpanExporter.class)
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger LOG = Logger.getLogger(FileSpanExporter.class);
+
+    private static final String SPAN_FORMAT = "{\"traceId\":\"%s\",\"spanId\":\"%s\",\"parentSpanId\":%s,"
+            + "\"name\":\"%s\",\"startEpochMicros\":%d,\"durationMicros\":%d,\"error\":%s}";
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private final Path file;
+    private final ThreadPoolExecutor writer;
+
+    private BufferedWriter output;
+
+    @Inject
+    public FileSpanExporter(TracingConfiguration tracingConfig) {
+        this.file = Path.of(tracingConfig.getExportFile());
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tracingConfig.getExportQueueSize()),
+                task -> {
+                    Thread thread = new Thread(task, "span-exporter");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void export(StageTimings timings) {
+        writer.execute(() -> write(timings));
+    }
+
+    @PreDestroy
+    void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to close the span file.", e);
+            }
+        }
+    }
+
+    private void write(StageTimings timings) {
+        String traceId = randomHex() + randomHex();
+        String rootSpanId = randomHex();
+        Throwable failure = timings.getFailure();
+
+        try {
+            BufferedWriter out = getOutput();
+            out.write(span(traceId, rootSpanId, null, timings.getName(), timings.getStartEpochMicros(),
+                    timings.getDurationNanos(), failure != null ? failure.getClass().getSimpleName() : null));
+            for (Stage stage : timings.getStages()) {
+                out.write(span(traceId, randomHex(), rootSpanId, stage.name(),
+                        timings.getStartEpochMicros() + TimeUnit.NANOSECONDS.toMicros(stage.offsetNanos()),
+                        stage.durationNanos(), stage.error()));
+            }
+
+            // Flushing once the queue drains keeps the file current without a write per span under load.
+            if (writer.getQueue().isEmpty()) {
+                out.flush();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            LOG.warn("Unable to write spans to " + file + ".", e);
+        }
+    }
+
+    private BufferedWriter getOutput() throws IOException {
+        if (output == null) {
+            output = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+
+        return output;
+    }
+
+    private static String span(String traceId, String spanId, String parentSpanId, String name,
+            long startEpochMicros, long durationNanos, String error) {
+        return String.format(SPAN_FORMAT, traceId, spanId, quoted(parentSpanId), name, startEpochMicros,
+                TimeUnit.NANOSECONDS.toMicros(durationNanos), quoted(error)) + System.lineSeparator();
+    }
+
+    private static String quoted(String value) {
+        return value != null ? "\"" + value + "\"" : "null";
+    }
+
+    private static String randomHex() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+}
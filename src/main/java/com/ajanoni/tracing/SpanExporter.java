@@ -0,0 +1,10 @@
+package com.ajanoni.tracing;
+
+public interface SpanExporter {
+
+    /**
+     * Exports the request as a root span with one child span per stage. Must not block the caller.
+     */
+    void export(StageTimings timings);
+
+}
@@ -0,0 +1,27 @@
+package com.ajanoni.tracing;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+
+@Dependent
+@RegisterForReflection
+public class SpanExporterConfiguration {
+
+    private static final String MESSAGE_UNKNOWN_TYPE = "Unknown span exporter type: ";
+
+    @Produces
+    @ApplicationScoped
+    public SpanExporter spanExporter(TracingConfiguration tracingConfig, Instance<FileSpanExporter> fileExporter) {
+        switch (tracingConfig.getExporter()) {
+            case TracingConfiguration.EXPORTER_NONE:
+                return timings -> { };
+            case TracingConfiguration.EXPORTER_FILE:
+                return fileExporter.get();
+            default:
+                throw new IllegalStateException(MESSAGE_UNKNOWN_TYPE + tracingConfig.getExporter());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ajanoni.tracing;
+
+import io.smallrye.mutiny.Uni;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+/**
+ * Time spent in each stage of one request. Stages may complete on different threads, so recording is synchronized.
+ * The disabled instance records nothing and adds no work to the pipeline.
+ */
+public final class StageTimings {
+
+    public static final String VALIDATE = "validate";
+    public static final String LOAD = "load";
+    public static final String LOCK = "lock";
+    public static final String CONFLICT_CHECK = "conflict-check";
+    public static final String CUSTOMER = "customer";
+    public static final String INSERT = "insert";
+    public static final String UPDATE = "update";
+
+    private static final StageTimings DISABLED = new StageTimings(null);
+    private static final String TOTAL = "total";
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private final List<Stage> stages = new ArrayList<>();
+
+    private long durationNanos;
+    private Throwable failure;
+
+    private StageTimings(String name) {
+        this.name = name;
+        this.startEpochMicros = name != null ? System.currentTimeMillis() * 1000 : 0;
+        this.startNanos = name != null ? System.nanoTime() : 0;
+    }
+
+    public static StageTimings start(String name) {
+        return new StageTimings(name);
+    }
+
+    public static StageTimings disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    public <T> Uni<T> timed(String stage, Supplier<Uni<T>> operation) {
+        if (!isEnabled()) {
+            return operation.get();
+        }
+
+        return Uni.createFrom().deferred(() -> {
+            long stageStartNanos = System.nanoTime();
+            return operation.get().onTermination().invoke((item, stageFailure, cancelled) ->
+                    add(stage, stageStartNanos, stageFailure));
+        });
+    }
+
+    /**
+     * Start of a stage that does not map to one pipeline, closed by {@link #end(String, long, Throwable)}.
+     */
+    public long begin() {
+        return isEnabled() ? System.nanoTime() : 0;
+    }
+
+    public void end(String stage, long stageStartNanos, Throwable stageFailure) {
+        if (isEnabled()) {
+            add(stage, stageStartNanos, stageFailure);
+        }
+    }
+
+    synchronized void finish(Throwable requestFailure) {
+        durationNanos = System.nanoTime() - startNanos;
+        failure = requestFailure;
+    }
+
+    /**
+     * Stages and the request total in the {@code Server-Timing} header format, durations in milliseconds.
+     */
+    public synchronized String toServerTiming() {
+        String stageTimings = stages.stream()
+                .map(stage -> serverTiming(stage.name(), stage.durationNanos()))
+                .collect(Collectors.joining(", "));
+        String total = serverTiming(TOTAL, durationNanos);
+
+        return stageTimings.isEmpty() ? total : stageTimings + ", " + total;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public synchronized long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public synchronized Throwable getFailure() {
+        return failure;
+    }
+
+    public synchronized List<Stage> getStages() {
+        return List.copyOf(stages);
+    }
+
+    private synchronized void add(String stage, long stageStartNanos, Throwable stageFailure) {
+        stages.add(new Stage(stage, stageStartNanos - startNanos, System.nanoTime() - stageStartNanos,
+                stageFailure != null ? stageFailure.getClass().getSimpleName() : null));
+    }
+
+    private static String serverTiming(String name, long durationNanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.2f", name, durationNanos / NANOS_PER_MILLI);
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class Stage {
+
+        private final String name;
+        private final long offsetNanos;
+        private final long durationNanos;
+        private final String error;
+
+    }
+}
@@ -0,0 +1,42 @@
+package com.ajanoni.tracing;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Starts stage timings for a request when the Server-Timing header or a span exporter wants them, otherwise hands out
+ * the disabled instance.
+ */
+@ApplicationScoped
+public class StageTracer {
+
+    private final SpanExporter spanExporter;
+    private final boolean serverTiming;
+    private final boolean exporting;
+
+    @Inject
+    public StageTracer(TracingConfiguration tracingConfig, SpanExporter spanExporter) {
+        this.spanExporter = spanExporter;
+        this.serverTiming = tracingConfig.isServerTiming();
+        this.exporting = !TracingConfiguration.EXPORTER_NONE.equals(tracingConfig.getExporter());
+    }
+
+    public StageTimings start(String name) {
+        return serverTiming || exporting ? StageTimings.start(name) : StageTimings.disabled();
+    }
+
+    public void finish(StageTimings timings, Throwable failure) {
+        if (!timings.isEnabled()) {
+            return;
+        }
+
+        timings.finish(failure);
+        if (exporting) {
+            spanExporter.export(timings);
+        }
+    }
+
+    public boolean isServerTimingEnabled() {
+        return serverTiming;
+    }
+}
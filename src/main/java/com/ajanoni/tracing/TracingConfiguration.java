@@ -0,0 +1,49 @@
+package com.ajanoni.tracing;
+
+import io.quarkus.arc.config.ConfigProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@ConfigProperties(prefix = "tracing")
+@RegisterForReflection
+public class TracingConfiguration {
+
+    public static final String EXPORTER_NONE = "none";
+    public static final String EXPORTER_FILE = "file";
+
+    private boolean serverTiming = false;
+    private String exporter = EXPORTER_NONE;
+    private String exportFile = "booking-spans.jsonl";
+    private int exportQueueSize = 10_000;
+
+    public boolean isServerTiming() {
+        return serverTiming;
+    }
+
+    public void setServerTiming(boolean serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    public String getExporter() {
+        return exporter;
+    }
+
+    public void setExporter(String exporter) {
+        this.exporter = exporter;
+    }
+
+    public String getExportFile() {
+        return exportFile;
+    }
+
+    public void setExportFile(String exportFile) {
+        this.exportFile = exportFile;
+    }
+
+    public int getExportQueueSize() {
+        return exportQueueSize;
+    }
+
+    public void setExportQueueSize(int exportQueueSize) {
+        this.exportQueueSize = exportQueueSize;
+    }
+}
@@ -0,0 +1,9 @@
+-- Adds the bookable unit to existing reservations, which all belong to the default unit.
+ALTER TABLE `reservations`
+  ADD COLUMN `unit_id` varchar(36) NOT NULL DEFAULT 'default' AFTER `customer_id`,
+  DROP INDEX `IDX_ARRIVAL`,
+  DROP INDEX `IDX_DEPARTURE`,
+  ADD KEY `IDX_UNIT_ARRIVAL` (`unit_id`, `arrival_date`),
+  ADD KEY `IDX_UNIT_DEPARTURE` (`unit_id`, `departure_date`);
+
+ALTER TABLE `reservations` ALTER COLUMN `unit_id` DROP DEFAULT;
@@ -0,0 +1,19 @@
+-- One row per reserved night, the primary key makes booking the same night of a unit twice impossible.
+CREATE TABLE IF NOT EXISTS `reservation_nights` (
+  `unit_id` varchar(36) NOT NULL,
+  `night` date NOT NULL,
+  `reservation_id` varchar(36) NOT NULL,
+  PRIMARY KEY (`unit_id`, `night`),
+  KEY `IDX_RESERVATION` (`reservation_id`),
+  CONSTRAINT `FK_RESERVATION` FOREIGN KEY (`reservation_id`) REFERENCES `reservations` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Backfills the nights of existing reservations. An overlap left by the old lock-only flow fails this statement as a
+-- whole, see checks/002_overlapping_reservations.sql; once resolved, the file can be run again.
+INSERT INTO `reservation_nights` (`unit_id`, `night`, `reservation_id`)
+WITH RECURSIVE `nights` (`unit_id`, `night`, `last_night`, `reservation_id`) AS (
+  SELECT `unit_id`, DATE(`arrival_date`), DATE(`departure_date`), `id` FROM `reservations`
+  UNION ALL
+  SELECT `unit_id`, `night` + INTERVAL 1 DAY, `last_night`, `reservation_id` FROM `nights` WHERE `night` < `last_night`
+)
+SELECT `unit_id`, `night`, `reservation_id` FROM `nights`;
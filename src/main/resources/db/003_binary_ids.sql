@@ -0,0 +1,32 @@
+-- Moves the ids from varchar(36) text to binary(16). Existing ids are converted in place with UUID_TO_BIN, without
+-- the swap flag, so new time-ordered ids keep their natural byte order.
+ALTER TABLE `reservation_nights` DROP FOREIGN KEY `FK_RESERVATION`;
+ALTER TABLE `reservations` DROP FOREIGN KEY `FK_CUSTOMER`;
+
+ALTER TABLE `customers` ADD COLUMN `binary_id` binary(16) AFTER `id`;
+UPDATE `customers` SET `binary_id` = UUID_TO_BIN(`id`);
+ALTER TABLE `customers` DROP PRIMARY KEY, DROP COLUMN `id`;
+ALTER TABLE `customers` CHANGE `binary_id` `id` binary(16) NOT NULL, ADD PRIMARY KEY (`id`);
+
+ALTER TABLE `reservations`
+  ADD COLUMN `binary_id` binary(16) AFTER `id`,
+  ADD COLUMN `binary_customer_id` binary(16) AFTER `customer_id`;
+UPDATE `reservations` SET `binary_id` = UUID_TO_BIN(`id`), `binary_customer_id` = UUID_TO_BIN(`customer_id`);
+ALTER TABLE `reservations` DROP PRIMARY KEY, DROP INDEX `FK_CUSTOMER_idx`, DROP COLUMN `id`, DROP COLUMN `customer_id`;
+ALTER TABLE `reservations`
+  CHANGE `binary_id` `id` binary(16) NOT NULL,
+  CHANGE `binary_customer_id` `customer_id` binary(16) DEFAULT NULL,
+  ADD PRIMARY KEY (`id`),
+  ADD KEY `FK_CUSTOMER_idx` (`customer_id`);
+
+ALTER TABLE `reservation_nights` ADD COLUMN `binary_reservation_id` binary(16) AFTER `reservation_id`;
+UPDATE `reservation_nights` SET `binary_reservation_id` = UUID_TO_BIN(`reservation_id`);
+ALTER TABLE `reservation_nights` DROP INDEX `IDX_RESERVATION`, DROP COLUMN `reservation_id`;
+ALTER TABLE `reservation_nights`
+  CHANGE `binary_reservation_id` `reservation_id` binary(16) NOT NULL,
+  ADD KEY `IDX_RESERVATION` (`reservation_id`);
+
+ALTER TABLE `reservations`
+  ADD CONSTRAINT `FK_CUSTOMER` FOREIGN KEY (`customer_id`) REFERENCES `customers` (`id`);
+ALTER TABLE `reservation_nights`
+  ADD CONSTRAINT `FK_RESERVATION` FOREIGN KEY (`reservation_id`) REFERENCES `reservations` (`id`) ON DELETE CASCADE;
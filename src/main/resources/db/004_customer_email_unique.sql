@@ -0,0 +1,16 @@
+-- Merges customers sharing an email into the one with the lowest id, then makes the email unique so the booking
+-- flow can upsert customers in a single statement.
+CREATE TEMPORARY TABLE `kept_customers` AS
+  SELECT `email`, MIN(`id`) AS `id` FROM `customers` GROUP BY `email` HAVING COUNT(*) > 1;
+
+UPDATE `reservations` `r`
+  JOIN `customers` `c` ON `c`.`id` = `r`.`customer_id`
+  JOIN `kept_customers` `k` ON `k`.`email` = `c`.`email`
+SET `r`.`customer_id` = `k`.`id`;
+
+DELETE `c` FROM `customers` `c`
+  JOIN `kept_customers` `k` ON `k`.`email` = `c`.`email` AND `c`.`id` <> `k`.`id`;
+
+DROP TEMPORARY TABLE `kept_customers`;
+
+ALTER TABLE `customers` ADD UNIQUE KEY `UK_EMAIL` (`email`);
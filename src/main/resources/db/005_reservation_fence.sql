@@ -0,0 +1,4 @@
+-- Keeps the fencing token of the lock acquisition that last wrote each reservation, so a writer whose lease was
+-- taken over can not overwrite a newer change. Rows written without a lock keep a null token.
+ALTER TABLE `reservations`
+  ADD COLUMN `fence` bigint DEFAULT NULL AFTER `departure_date`;
@@ -0,0 +1,12 @@
+-- Lists the reservations of a unit sharing a night, left by the old lock-only flow. Run before
+-- 002_reservation_nights.sql and resolve every pair it returns, otherwise the backfill fails on the primary key.
+SELECT `first`.`unit_id`,
+  `first`.`id` AS `first_reservation_id`, DATE(`first`.`arrival_date`) AS `first_arrival_date`,
+  DATE(`first`.`departure_date`) AS `first_departure_date`,
+  `second`.`id` AS `second_reservation_id`, DATE(`second`.`arrival_date`) AS `second_arrival_date`,
+  DATE(`second`.`departure_date`) AS `second_departure_date`
+FROM `reservations` `first`
+  JOIN `reservations` `second` ON `second`.`unit_id` = `first`.`unit_id` AND `second`.`id` > `first`.`id`
+    AND DATE(`second`.`arrival_date`) <= DATE(`first`.`departure_date`)
+    AND DATE(`first`.`arrival_date`) <= DATE(`second`.`departure_date`)
+ORDER BY `first`.`unit_id`, `first`.`arrival_date`;
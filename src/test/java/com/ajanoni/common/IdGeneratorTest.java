@@ -0,0 +1,44 @@
+package com.ajanoni.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class IdGeneratorTest {
+
+    private static final long EPOCH_MILLIS = 1_600_000_000_000L;
+
+    @Test
+    void versionAndVariant() {
+        UUID id = UUID.fromString(IdGenerator.newId());
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void timestampInLeadingBits() {
+        UUID id = IdGenerator.newId(EPOCH_MILLIS);
+
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(EPOCH_MILLIS);
+    }
+
+    @Test
+    void laterIdsSortAfter() {
+        String earlier = IdGenerator.newId(EPOCH_MILLIS).toString();
+        String later = IdGenerator.newId(EPOCH_MILLIS + 1).toString();
+
+        assertThat(later).isGreaterThan(earlier);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        String id = IdGenerator.newId();
+
+        byte[] bytes = IdGenerator.toBytes(id);
+
+        assertThat(bytes).hasSize(16);
+        assertThat(IdGenerator.fromBytes(bytes)).isEqualTo(id);
+    }
+}
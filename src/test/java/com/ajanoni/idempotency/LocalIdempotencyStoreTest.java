@@ -0,0 +1,116 @@
+package com.ajanoni.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.ajanoni.exception.IdempotencyKeyReuseException;
+import com.ajanoni.exception.ReservationConflictException;
+import io.smallrye.mutiny.Uni;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LocalIdempotencyStoreTest {
+
+    private static final String KEY = "key";
+    private static final String RESULT = "result";
+    private static final String FINGERPRINT = "fingerprint";
+
+    private IdempotencyConfiguration idempotencyConfig;
+    private LocalIdempotencyStore testInstance;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setup() {
+        idempotencyConfig = new IdempotencyConfiguration();
+        idempotencyConfig.setInFlightTimeout(Duration.ofMillis(200));
+        testInstance = new LocalIdempotencyStore(idempotencyConfig);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void replayStoredResult() {
+        String first = testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT)))
+                .await().indefinitely();
+        String second = testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item("other")))
+                .await().indefinitely();
+
+        assertThat(first).isEqualTo(RESULT);
+        assertThat(second).isEqualTo(RESULT);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void keysAreIndependent() {
+        testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT))).await().indefinitely();
+        String other = testInstance.execute("other", FINGERPRINT, count(() -> Uni.createFrom().item("other")))
+                .await().indefinitely();
+
+        assertThat(other).isEqualTo("other");
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void waitForInFlightExecution() {
+        CompletableFuture<String> release = new CompletableFuture<>();
+        CompletableFuture<String> first = testInstance
+                .execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().completionStage(release)))
+                .subscribeAsCompletionStage();
+        CompletableFuture<String> duplicate = testInstance
+                .execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item("other")))
+                .subscribeAsCompletionStage();
+
+        assertThat(duplicate).isNotDone();
+        release.complete(RESULT);
+
+        assertThat(first.join()).isEqualTo(RESULT);
+        assertThat(duplicate.join()).isEqualTo(RESULT);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void rejectKeyReusedForAnotherRequest() {
+        testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT))).await().indefinitely();
+
+        assertThatThrownBy(() -> testInstance.execute(KEY, "other", count(() -> Uni.createFrom().item("other")))
+                .await().indefinitely())
+                .isInstanceOf(IdempotencyKeyReuseException.class)
+                .hasMessage("The idempotency key was already used with a different request.");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void failedExecutionIsNotStored() {
+        assertThatThrownBy(() -> testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom()
+                .failure(new IllegalStateException("failed")))).await().indefinitely())
+                .isInstanceOf(IllegalStateException.class);
+
+        String retried = testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT)))
+                .await().indefinitely();
+
+        assertThat(retried).isEqualTo(RESULT);
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void conflictWhenInFlightTakesTooLong() {
+        testInstance.execute(KEY, FINGERPRINT, () -> Uni.createFrom().completionStage(new CompletableFuture<>()))
+                .subscribeAsCompletionStage();
+
+        assertThatThrownBy(() -> testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT)))
+                .await().indefinitely())
+                .isInstanceOf(ReservationConflictException.class)
+                .hasMessage("A request with the same idempotency key is still in progress.");
+        assertThat(executions).hasValue(0);
+    }
+
+    private Supplier<Uni<String>> count(Supplier<Uni<String>> operation) {
+        return () -> {
+            executions.incrementAndGet();
+            return operation.get();
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package com.ajanoni.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.ajanoni.exception.IdempotencyKeyReuseException;
+import com.ajanoni.exception.ReservationConflictException;
+import io.smallrye.mutiny.Uni;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+class RedisIdempotencyStoreTest {
+
+    private static final int REDIS_PORT = 26391;
+    private static final String KEY = "key";
+    private static final String RESULT = "result";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final Duration TTL = Duration.ofMinutes(1);
+    private static final Duration IN_FLIGHT_TIMEOUT = Duration.ofMillis(500);
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private RedisIdempotencyStore testInstance;
+    private AtomicInteger executions;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://localhost:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setup() {
+        IdempotencyConfiguration idempotencyConfig = new IdempotencyConfiguration();
+        idempotencyConfig.setTtl(TTL);
+        idempotencyConfig.setInFlightTimeout(IN_FLIGHT_TIMEOUT);
+        testInstance = new RedisIdempotencyStore(redissonClient, idempotencyConfig);
+        executions = new AtomicInteger();
+    }
+
+    @AfterEach
+    void cleanup() {
+        redissonClient.getKeys().flushall();
+    }
+
+    @Test
+    void replayStoredResult() {
+        String first = testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT)))
+                .await().indefinitely();
+        String second = testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item("other")))
+                .await().indefinitely();
+
+        assertThat(first).isEqualTo(RESULT);
+        assertThat(second).isEqualTo(RESULT);
+        assertThat(executions).hasValue(1);
+        assertThat(redissonClient.getBucket("idempotency:" + KEY, StringCodec.INSTANCE).remainTimeToLive())
+                .isPositive().isLessThanOrEqualTo(TTL.toMillis());
+    }
+
+    @Test
+    void waitForInFlightExecution() {
+        CompletableFuture<String> release = new CompletableFuture<>();
+        CompletableFuture<String> first = testInstance
+                .execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().completionStage(release)))
+                .subscribeAsCompletionStage();
+        CompletableFuture<String> duplicate = testInstance
+                .execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item("other")))
+                .subscribeAsCompletionStage();
+
+        release.complete(RESULT);
+
+        assertThat(first.join()).isEqualTo(RESULT);
+        assertThat(duplicate.join()).isEqualTo(RESULT);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void keepInFlightMarkerWhileExecutionRuns() throws Exception {
+        CompletableFuture<String> release = new CompletableFuture<>();
+        CompletableFuture<String> first = testInstance
+                .execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().completionStage(release)))
+                .subscribeAsCompletionStage();
+
+        Thread.sleep(IN_FLIGHT_TIMEOUT.multipliedBy(2).toMillis());
+        assertThatThrownBy(() -> testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item("other")))
+                .await().indefinitely())
+                .isInstanceOf(ReservationConflictException.class);
+        release.complete(RESULT);
+
+        assertThat(first.join()).isEqualTo(RESULT);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void rejectKeyReusedForAnotherRequest() {
+        testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT))).await().indefinitely();
+
+        assertThatThrownBy(() -> testInstance.execute(KEY, "other", count(() -> Uni.createFrom().item("other")))
+                .await().indefinitely())
+                .isInstanceOf(IdempotencyKeyReuseException.class)
+                .hasMessage("The idempotency key was already used with a different request.");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void failedExecutionIsNotStored() {
+        assertThatThrownBy(() -> testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom()
+                .failure(new IllegalStateException("failed")))).await().indefinitely())
+                .isInstanceOf(IllegalStateException.class);
+
+        String retried = testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT)))
+                .await().indefinitely();
+
+        assertThat(retried).isEqualTo(RESULT);
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void conflictWhenInFlightTakesTooLong() {
+        redissonClient.getBucket("idempotency:" + KEY, StringCodec.INSTANCE).set(FINGERPRINT + ":");
+
+        assertThatThrownBy(() -> testInstance.execute(KEY, FINGERPRINT, count(() -> Uni.createFrom().item(RESULT)))
+                .await().indefinitely())
+                .isInstanceOf(ReservationConflictException.class)
+                .hasMessage("A request with the same idempotency key is still in progress.");
+        assertThat(executions).hasValue(0);
+    }
+
+    private Supplier<Uni<String>> count(Supplier<Uni<String>> operation) {
+        return () -> {
+            executions.incrementAndGet();
+            return operation.get();
+        };
+    }
+}
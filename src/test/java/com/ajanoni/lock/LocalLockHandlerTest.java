@@ -0,0 +1,162 @@
+package com.ajanoni.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ajanoni.exception.LockAcquireException;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Uni;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LocalLockHandlerTest {
+
+    private static final Duration ACQUIRE_WAIT_TIME = Duration.ofMillis(200);
+    private static final Duration LEASE_TIME = Duration.ofSeconds(60);
+    private static final Duration AWAIT_TIME = Duration.ofSeconds(5);
+    private static final String RESULT = "result";
+
+    private LockConfiguration lockConfig;
+    private LockMetrics lockMetrics;
+    private LockDiagnostics lockDiagnostics;
+    private FenceStore fenceStore;
+    private LocalLockHandler testInstance;
+
+    @BeforeEach
+    void setup() {
+        lockConfig = new LockConfiguration();
+        lockConfig.setAcquireWaitTime(ACQUIRE_WAIT_TIME);
+        lockConfig.setLeaseTime(LEASE_TIME);
+        lockMetrics = new LockMetrics(new MetricsRegistryImpl());
+        lockDiagnostics = new LockDiagnostics(lockConfig, new MetricsRegistryImpl());
+        fenceStore = () -> Uni.createFrom().item(0L);
+        testInstance = new LocalLockHandler(lockConfig, lockMetrics, lockDiagnostics, fenceStore);
+    }
+
+    @Test
+    void executeAndRelease() {
+        String result = execute(List.of("a", "b"));
+
+        assertThat(result).isEqualTo(RESULT);
+        assertThat(execute(List.of("b", "a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void failWhenLockIsHeld() {
+        hold(List.of("a"));
+
+        Throwable failure = executeForFailure(List.of("a"));
+
+        assertThat(failure).isInstanceOf(LockAcquireException.class);
+    }
+
+    @Test
+    void recordTimeoutOnBlockingName() {
+        hold(List.of("b"));
+
+        executeForFailure(List.of("a", "b"));
+
+        assertThat(lockDiagnostics.getTimeouts(10)).containsExactly(new LockDiagnostics.NameCount("b", 1));
+        assertThat(lockDiagnostics.getHottest(10)).extracting(LockDiagnostics.NameCount::name).containsExactly("b");
+    }
+
+    @Test
+    void reportHeldLocks() {
+        CompletableFuture<String> held = hold(List.of("a", "b"));
+
+        List<HeldLock> heldLocks = testInstance.getHeldLocks(10).await().atMost(AWAIT_TIME);
+
+        assertThat(heldLocks).extracting(HeldLock::name).containsExactlyInAnyOrder("a", "b");
+        assertThat(heldLocks).allSatisfy(heldLock -> assertThat(heldLock.leaseRemaining()).isPositive());
+        assertThat(lockDiagnostics.getHeld()).containsOnlyKeys("a", "b");
+        held.complete(RESULT);
+        assertThat(testInstance.getHeldLocks(10).await().atMost(AWAIT_TIME)).isEmpty();
+        assertThat(lockDiagnostics.getHeld()).isEmpty();
+    }
+
+    @Test
+    void releasePartialAcquire() {
+        hold(List.of("b"));
+
+        executeForFailure(List.of("a", "b"));
+
+        assertThat(execute(List.of("a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void waitForRelease() {
+        CompletableFuture<String> held = hold(List.of("a"));
+
+        Uni<String> waiting = testInstance.executeWithLock(List.of("a"), fence -> Uni.createFrom().item(RESULT));
+        CompletableFuture<String> result = waiting.subscribeAsCompletionStage();
+        held.complete(RESULT);
+
+        assertThat(result.join()).isEqualTo(RESULT);
+    }
+
+    @Test
+    void releaseOnFailure() {
+        Uni<String> failing = testInstance.executeWithLock(List.of("a"),
+                fence -> Uni.createFrom().failure(new IllegalStateException()));
+
+        failing.onFailure().recoverWithItem(RESULT).await().atMost(AWAIT_TIME);
+
+        assertThat(execute(List.of("a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void renewLeaseWhileRunning() throws InterruptedException {
+        lockConfig.setLeaseTime(Duration.ofMillis(90));
+        testInstance = new LocalLockHandler(lockConfig, lockMetrics, lockDiagnostics, fenceStore);
+        CompletableFuture<String> held = hold(List.of("a"));
+        Thread.sleep(300);
+
+        assertThat(executeForFailure(List.of("a"))).isInstanceOf(LockAcquireException.class);
+        held.complete(RESULT);
+        assertThat(execute(List.of("a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void increaseFenceOnEachAcquire() {
+        long first = testInstance.executeWithLock(List.of("a"), fence -> Uni.createFrom().item(fence))
+                .await().atMost(AWAIT_TIME);
+        long second = testInstance.executeWithLock(List.of("b"), fence -> Uni.createFrom().item(fence))
+                .await().atMost(AWAIT_TIME);
+
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void continueFencesAfterRestart() {
+        long storedFence = executeForFence(List.of("a")) + 100;
+        fenceStore = () -> Uni.createFrom().item(storedFence);
+        testInstance = new LocalLockHandler(lockConfig, lockMetrics, lockDiagnostics, fenceStore);
+
+        assertThat(executeForFence(List.of("a"))).isGreaterThan(storedFence);
+    }
+
+    private CompletableFuture<String> hold(List<String> names) {
+        CompletableFuture<String> held = new CompletableFuture<>();
+        testInstance.executeWithLock(names, fence -> Uni.createFrom().completionStage(held))
+                .subscribe().with(item -> { });
+        return held;
+    }
+
+    private long executeForFence(List<String> names) {
+        return testInstance.executeWithLock(names, fence -> Uni.createFrom().item(fence)).await().atMost(AWAIT_TIME);
+    }
+
+    private String execute(List<String> names) {
+        return testInstance.executeWithLock(names, fence -> Uni.createFrom().item(RESULT))
+                .await().atMost(AWAIT_TIME);
+    }
+
+    private Throwable executeForFailure(List<String> names) {
+        return testInstance.executeWithLock(names, fence -> Uni.createFrom().item(RESULT))
+                .onItem().transform(item -> (Throwable) null)
+                .onFailure().recoverWithItem(failure -> failure)
+                .await().atMost(AWAIT_TIME);
+    }
+}
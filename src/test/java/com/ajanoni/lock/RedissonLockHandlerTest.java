@@ -0,0 +1,295 @@
+package com.ajanoni.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.ajanoni.exception.LockAcquireException;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Uni;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+class RedissonLockHandlerTest {
+
+    private static final int REDIS_PORT = 26390;
+    private static final Duration ACQUIRE_WAIT_TIME = Duration.ofMillis(200);
+    private static final Duration LEASE_TIME = Duration.ofSeconds(60);
+    private static final Duration AWAIT_TIME = Duration.ofSeconds(5);
+    private static final String RESULT = "result";
+    private static final String EVENT_PREFIX = "com.ajanoni.";
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private LockConfiguration lockConfig;
+    private LockMetrics lockMetrics;
+    private LockDiagnostics lockDiagnostics;
+    private FenceStore fenceStore;
+    private RedissonLockHandler testInstance;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://localhost:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setup() {
+        lockConfig = new LockConfiguration();
+        lockConfig.setAcquireWaitTime(ACQUIRE_WAIT_TIME);
+        lockConfig.setLeaseTime(LEASE_TIME);
+        lockMetrics = new LockMetrics(new MetricsRegistryImpl());
+        lockDiagnostics = new LockDiagnostics(lockConfig, new MetricsRegistryImpl());
+        fenceStore = () -> Uni.createFrom().item(0L);
+        testInstance = new RedissonLockHandler(redissonClient, lockConfig, lockMetrics, lockDiagnostics, fenceStore);
+    }
+
+    @AfterEach
+    void cleanup() {
+        redissonClient.getKeys().flushall();
+    }
+
+    @Test
+    void executeAndRelease() throws InterruptedException {
+        String result = execute(List.of("a", "b"));
+
+        assertThat(result).isEqualTo(RESULT);
+        awaitReleased("a");
+        awaitReleased("b");
+        assertThat(redissonClient.getKeys().countExists(RedissonLockHandler.KEY_PREFIX + "a",
+                RedissonLockHandler.KEY_PREFIX + "b")).isZero();
+        assertThat(execute(List.of("b", "a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void failWhenLockIsHeld() {
+        hold(List.of("a"));
+
+        Throwable failure = executeForFailure(List.of("a"));
+
+        assertThat(failure).isInstanceOf(LockAcquireException.class);
+    }
+
+    @Test
+    void acquireNothingWhenOneKeyIsHeld() {
+        hold(List.of("b"));
+
+        executeForFailure(List.of("a", "b"));
+
+        assertThat(redissonClient.getBucket(RedissonLockHandler.KEY_PREFIX + "a").isExists()).isFalse();
+        assertThat(execute(List.of("a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void recordTimeoutOnBlockingName() {
+        hold(List.of("b"));
+
+        executeForFailure(List.of("a", "b"));
+
+        assertThat(lockDiagnostics.getTimeouts(10)).containsExactly(new LockDiagnostics.NameCount("b", 1));
+        assertThat(lockDiagnostics.getHottest(10)).extracting(LockDiagnostics.NameCount::name).containsExactly("b");
+    }
+
+    @Test
+    void reportHeldLocks() throws InterruptedException {
+        CompletableFuture<String> held = hold(List.of("a"));
+        redissonClient.getBucket(RedissonLockHandler.KEY_PREFIX + "b", StringCodec.INSTANCE)
+                .set("another-instance", 60, TimeUnit.SECONDS);
+
+        List<HeldLock> heldLocks = testInstance.getHeldLocks(10).await().atMost(AWAIT_TIME);
+
+        assertThat(heldLocks).extracting(HeldLock::name).containsExactlyInAnyOrder("a", "b");
+        assertThat(heldLocks).allSatisfy(heldLock -> assertThat(heldLock.leaseRemaining()).isPositive());
+        assertThat(lockDiagnostics.getHeld()).containsOnlyKeys("a");
+        held.complete(RESULT);
+        awaitReleased("a");
+        assertThat(testInstance.getHeldLocks(10).await().atMost(AWAIT_TIME))
+                .extracting(HeldLock::name).containsExactly("b");
+    }
+
+    @Test
+    void waitForRelease() {
+        CompletableFuture<String> held = hold(List.of("a"));
+
+        CompletableFuture<String> result = testInstance
+                .executeWithLock(List.of("a"), fence -> Uni.createFrom().item(RESULT))
+                .subscribeAsCompletionStage();
+        held.complete(RESULT);
+
+        assertThat(result.join()).isEqualTo(RESULT);
+    }
+
+    @Test
+    void keepLockTakenByAnotherOwner() throws InterruptedException {
+        String key = RedissonLockHandler.KEY_PREFIX + "a";
+        CompletableFuture<String> held = hold(List.of("a", "b"));
+        redissonClient.getBucket(key, StringCodec.INSTANCE).set("another-owner");
+
+        held.complete(RESULT);
+        awaitReleased("b");
+
+        assertThat(redissonClient.getBucket(key, StringCodec.INSTANCE).get()).isEqualTo("another-owner");
+    }
+
+    @Test
+    void acquireLeaseOfDeadOwner() throws InterruptedException {
+        redissonClient.getBucket(RedissonLockHandler.KEY_PREFIX + "a", StringCodec.INSTANCE)
+                .set("dead-owner", 50, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+
+        assertThat(execute(List.of("a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void renewLeaseWhileRunning() throws InterruptedException {
+        lockConfig.setLeaseTime(Duration.ofMillis(150));
+        testInstance = new RedissonLockHandler(redissonClient, lockConfig, lockMetrics, lockDiagnostics, fenceStore);
+        CompletableFuture<String> held = hold(List.of("a"));
+        Thread.sleep(500);
+
+        assertThat(executeForFailure(List.of("a"))).isInstanceOf(LockAcquireException.class);
+        held.complete(RESULT);
+        awaitReleased("a");
+        assertThat(execute(List.of("a"))).isEqualTo(RESULT);
+    }
+
+    @Test
+    void increaseFenceOnEachAcquire() {
+        long first = testInstance.executeWithLock(List.of("a"), fence -> Uni.createFrom().item(fence))
+                .await().atMost(AWAIT_TIME);
+        long second = testInstance.executeWithLock(List.of("b"), fence -> Uni.createFrom().item(fence))
+                .await().atMost(AWAIT_TIME);
+
+        assertThat(second).isGreaterThan(first);
+        assertThat(redissonClient.getAtomicLong(RedissonLockHandler.FENCE_KEY).get()).isEqualTo(second);
+    }
+
+    @Test
+    void continueFencesAfterRestart() {
+        long storedFence = executeForFence(List.of("a")) + 100;
+        redissonClient.getKeys().flushall();
+        fenceStore = () -> Uni.createFrom().item(storedFence);
+        testInstance = new RedissonLockHandler(redissonClient, lockConfig, lockMetrics, lockDiagnostics, fenceStore);
+
+        assertThat(executeForFence(List.of("a"))).isGreaterThan(storedFence);
+    }
+
+    @Test
+    void continueFencesAfterCounterIsLost() {
+        long firstFence = executeForFence(List.of("a"));
+        redissonClient.getKeys().delete(RedissonLockHandler.FENCE_KEY);
+
+        assertThat(executeForFence(List.of("a"))).isGreaterThan(firstFence);
+    }
+
+    @Test
+    void recordAcquireEvents() throws IOException {
+        hold(List.of("b"));
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(LockAcquireEvent.class);
+            recording.start();
+            execute(List.of("a"));
+            executeForFailure(List.of("a", "b"));
+            recording.stop();
+            events = readEvents(recording);
+        }
+
+        assertThat(events).extracting(event -> event.getString("names"), event -> event.getString("outcome"),
+                event -> event.getString("blockedBy"))
+                .containsExactlyInAnyOrder(tuple("a", LockAcquireEvent.ACQUIRED, null),
+                        tuple("a,b", LockAcquireEvent.TIMED_OUT, "b"));
+    }
+
+    @Test
+    void skipAcquireEventsByDefault() throws IOException, ParseException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+            execute(List.of("a"));
+            recording.stop();
+            events = readEvents(recording);
+        }
+
+        assertThat(events).isEmpty();
+    }
+
+    private List<RecordedEvent> readEvents(Recording recording) throws IOException {
+        Path file = Files.createTempFile("lock-events", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().startsWith(EVENT_PREFIX))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void awaitReleased(String name) throws InterruptedException {
+        RBucket<String> bucket = redissonClient.getBucket(RedissonLockHandler.KEY_PREFIX + name, StringCodec.INSTANCE);
+        long deadline = System.nanoTime() + AWAIT_TIME.toNanos();
+        while (bucket.isExists() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private CompletableFuture<String> hold(List<String> names) {
+        CompletableFuture<String> held = new CompletableFuture<>();
+        CompletableFuture<String> acquired = new CompletableFuture<>();
+        testInstance.executeWithLock(names, fence -> {
+            acquired.complete(RESULT);
+            return Uni.createFrom().completionStage(held);
+        }).subscribe().with(item -> { });
+        acquired.join();
+        return held;
+    }
+
+    private long executeForFence(List<String> names) {
+        return testInstance.executeWithLock(names, fence -> Uni.createFrom().item(fence)).await().atMost(AWAIT_TIME);
+    }
+
+    private String execute(List<String> names) {
+        return testInstance.executeWithLock(names, fence -> Uni.createFrom().item(RESULT))
+                .await().atMost(AWAIT_TIME);
+    }
+
+    private Throwable executeForFailure(List<String> names) {
+        return testInstance.executeWithLock(names, fence -> Uni.createFrom().item(RESULT))
+                .onItem().transform(item -> (Throwable) null)
+                .onFailure().recoverWithItem(failure -> failure)
+                .await().atMost(AWAIT_TIME);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ajanoni.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class SlidingKeyCounterTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+    private static final int BUCKETS = 10;
+
+    @Test
+    void countPerKey() {
+        SlidingKeyCounter testInstance = new SlidingKeyCounter(WINDOW, BUCKETS, 100);
+
+        testInstance.increment("a");
+        testInstance.increment("a");
+        testInstance.increment("b");
+
+        assertThat(testInstance.getCounts()).containsOnlyKeys("a", "b")
+                .containsEntry("a", 2L)
+                .containsEntry("b", 1L);
+    }
+
+    @Test
+    void dropKeysBeyondLimit() {
+        SlidingKeyCounter testInstance = new SlidingKeyCounter(WINDOW, BUCKETS, 2);
+
+        testInstance.increment("a");
+        testInstance.increment("b");
+        testInstance.increment("c");
+        testInstance.increment("a");
+
+        assertThat(testInstance.getCounts()).containsOnlyKeys("a", "b")
+                .containsEntry("a", 2L);
+    }
+
+    @Test
+    void forgetCountsOutsideWindow() throws InterruptedException {
+        SlidingKeyCounter testInstance = new SlidingKeyCounter(Duration.ofMillis(100), BUCKETS, 100);
+
+        testInstance.increment("a");
+        Thread.sleep(200);
+        testInstance.increment("b");
+
+        assertThat(testInstance.getCounts()).containsOnlyKeys("b");
+    }
+}
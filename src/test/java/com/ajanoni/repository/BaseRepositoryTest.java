@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.BDDMockito.given;
 
+import com.ajanoni.common.IdGenerator;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.mutiny.sqlclient.Row;
 import io.vertx.mutiny.sqlclient.RowSet;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,10 +18,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 class BaseRepositoryTest {
 
     private static final String RETURNED_OBJECT = "retObject";
+    private static final String ID = "01750f9a-3c9e-7d2a-9b4e-1f2a3b4c5d6e";
+    private static final String COLUMN_ID = "id";
 
     @Mock
     private RowSet<Row> rowSet;
 
+    @Mock
+    private Row row;
+
     private BaseRepository testInstance;
 
     @BeforeEach
@@ -43,4 +50,22 @@ class BaseRepositoryTest {
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessage("Error on db operation.");
     }
+
+    @Test
+    void binaryIdRoundTrip() {
+        Buffer binaryId = testInstance.toBinaryId(ID);
+        given(row.getBuffer(COLUMN_ID)).willReturn(io.vertx.mutiny.core.buffer.Buffer.newInstance(binaryId));
+
+        String textId = testInstance.toTextId(row, COLUMN_ID);
+
+        assertThat(binaryId.getBytes()).isEqualTo(IdGenerator.toBytes(ID));
+        assertThat(textId).isEqualTo(ID);
+    }
+
+    @Test
+    void nilBinaryIdWhenTextIsNotAnId() {
+        Buffer binaryId = testInstance.toBinaryId("");
+
+        assertThat(binaryId.getBytes()).isEqualTo(new byte[16]);
+    }
 }
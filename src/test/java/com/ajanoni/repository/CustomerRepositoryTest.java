@@ -1,8 +1,11 @@
 package com.ajanoni.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.ajanoni.exception.ReservationRequestException;
 import com.ajanoni.repository.model.Customer;
+import io.smallrye.metrics.MetricsRegistryImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -12,11 +15,13 @@ class CustomerRepositoryTest extends DbTest {
     private static final String FULL_NAME = "full name";
 
     private CustomerRepositoryImpl testInstance;
+    private UnitOfWork unitOfWork;
     private Customer customer;
 
     @BeforeEach
     void setup() {
-        testInstance = new CustomerRepositoryImpl(getPool());
+        testInstance = new CustomerRepositoryImpl(getPool(), new RepositoryMetrics(new MetricsRegistryImpl()));
+        unitOfWork = new UnitOfWork(getPool());
         customer = Customer.builder()
                 .email(EMAIL)
                 .fullName(FULL_NAME)
@@ -47,6 +52,70 @@ class CustomerRepositoryTest extends DbTest {
         assertThat(resultCustomer).isEqualTo(updateCustomer);
     }
 
+    @Test
+    void updateUnchangedCustomer() {
+        String customerId = testInstance.save(customer).await().indefinitely();
+        Customer updateCustomer = Customer.builder()
+                .id(customerId)
+                .email(EMAIL)
+                .fullName(FULL_NAME)
+                .build();
+
+        Customer resultCustomer = testInstance.update(updateCustomer).await().indefinitely();
+
+        assertThat(resultCustomer).isEqualTo(updateCustomer);
+    }
+
+    @Test
+    void upsertNewCustomer() {
+        String resultValue = unitOfWork.inTransaction(tx -> testInstance.upsert(tx, customer)).await().indefinitely();
+        String id = getId("customers");
+
+        assertThat(resultValue).isEqualTo(id);
+    }
+
+    @Test
+    void upsertExistingCustomer() {
+        String customerId = testInstance.save(customer).await().indefinitely();
+        Customer renamedCustomer = Customer.builder()
+                .email(EMAIL)
+                .fullName("new fullname")
+                .build();
+
+        String resultValue = unitOfWork.inTransaction(tx -> testInstance.upsert(tx, renamedCustomer))
+                .await().indefinitely();
+
+        assertThat(resultValue).isEqualTo(customerId);
+        assertThat(testInstance.getByEmail(EMAIL).await().indefinitely().fullName()).isEqualTo("new fullname");
+    }
+
+    @Test
+    void upsertUnchangedCustomer() {
+        String customerId = testInstance.save(customer).await().indefinitely();
+
+        String resultValue = unitOfWork.inTransaction(tx -> testInstance.upsert(tx, customer))
+                .await().indefinitely();
+
+        assertThat(resultValue).isEqualTo(customerId);
+    }
+
+    @Test
+    void notUpdatedToEmailOfAnotherCustomer() {
+        testInstance.save(customer).await().indefinitely();
+        String anotherCustomerId = testInstance.save(Customer.builder()
+                .email("another@email.com")
+                .fullName(FULL_NAME)
+                .build()).await().indefinitely();
+        Customer updateCustomer = Customer.builder()
+                .id(anotherCustomerId)
+                .email(EMAIL)
+                .fullName(FULL_NAME)
+                .build();
+
+        assertThatThrownBy(() -> testInstance.update(updateCustomer).await().indefinitely())
+                .isInstanceOf(ReservationRequestException.class);
+    }
+
     @Test
     void getByEmail() {
         testInstance.save(customer).await().indefinitely();
@@ -59,7 +59,8 @@ class DbTest {
                 .setHost(CONTAINER.getContainerIpAddress())
                 .setDatabase(DB_NAME)
                 .setUser(DB_USER)
-                .setPassword(DB_PASSWORD);
+                .setPassword(DB_PASSWORD)
+                .setUseAffectedRows(true);
 
         pool = MySQLPool.pool(vertx, options, new PoolOptions());
 
@@ -76,7 +77,7 @@ class DbTest {
     }
 
     String getId(String table) {
-        return pool.query(format("SELECT ID FROM %s;", table)).executeAndAwait()
+        return pool.query(format("SELECT BIN_TO_UUID(id) AS ID FROM %s;", table)).executeAndAwait()
                 .iterator()
                 .next()
                 .getString("ID");
@@ -0,0 +1,72 @@
+package com.ajanoni.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ajanoni.repository.model.Reservation;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReservationCacheTest {
+
+    private static final Reservation RESERVATION = Reservation.builder()
+            .id("id")
+            .customerId("customerId")
+            .unitId("room-1")
+            .arrivalDate(LocalDate.of(2020, 1, 1))
+            .departureDate(LocalDate.of(2020, 1, 2))
+            .build();
+
+    private ReservationCache testInstance;
+
+    @BeforeEach
+    void setup() {
+        ReservationCacheConfiguration cacheConfig = new ReservationCacheConfiguration();
+        cacheConfig.setMaximumSize(1);
+        testInstance = new ReservationCache(cacheConfig);
+    }
+
+    @Test
+    void getCached() {
+        testInstance.put(RESERVATION);
+
+        assertThat(testInstance.get(RESERVATION.id())).contains(RESERVATION);
+        assertThat(testInstance.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void missAfterInvalidate() {
+        testInstance.put(RESERVATION);
+        testInstance.invalidate(RESERVATION.id());
+
+        assertThat(testInstance.get(RESERVATION.id())).isEmpty();
+        assertThat(testInstance.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void putReadWithoutInvalidation() {
+        long readGeneration = testInstance.getGeneration();
+        testInstance.putIfNotInvalidated(RESERVATION, readGeneration);
+
+        assertThat(testInstance.get(RESERVATION.id())).contains(RESERVATION);
+    }
+
+    @Test
+    void skipReadStartedBeforeInvalidation() {
+        long readGeneration = testInstance.getGeneration();
+        testInstance.invalidate(RESERVATION.id());
+        testInstance.putIfNotInvalidated(RESERVATION, readGeneration);
+
+        assertThat(testInstance.get(RESERVATION.id())).isEmpty();
+    }
+
+    @Test
+    void evictWhenFull() {
+        testInstance.put(RESERVATION);
+        testInstance.put(RESERVATION.toBuilder().id("anotherId").build());
+
+        assertThat(testInstance.get(RESERVATION.id())).isEmpty();
+        assertThat(testInstance.getEvictionCount()).isEqualTo(1);
+        assertThat(testInstance.getSize()).isEqualTo(1);
+    }
+}
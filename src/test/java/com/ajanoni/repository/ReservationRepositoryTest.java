@@ -2,9 +2,13 @@ package com.ajanoni.repository;
 
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.ajanoni.common.DateRange;
 import com.ajanoni.common.DateUtil;
+import com.ajanoni.exception.ReservationConflictException;
 import com.ajanoni.repository.model.Reservation;
+import io.smallrye.metrics.MetricsRegistryImpl;
 import java.time.LocalDate;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,20 +16,24 @@ import org.junit.jupiter.api.Test;
 
 class ReservationRepositoryTest extends DbTest {
 
-    private static final String CUSTOMER_ID = "customerId";
+    private static final String CUSTOMER_ID = "01750f9a-3c9e-7d2a-9b4e-1f2a3b4c5d6e";
     private static final LocalDate ARRIVAL_DATE = LocalDate.of(2020, 01, 01);
     private static final LocalDate DEPARTURE_DATE = LocalDate.of(2020, 01, 10);
     private static final String ANOTHER_RESERVATION_ID = "anotherId";
+    private static final String UNIT_ID = "room-1";
+    private static final String ANOTHER_UNIT_ID = "room-2";
 
     private ReservationsRepositoryImpl testInstance;
 
     @BeforeEach
     void setup() {
-        testInstance = new ReservationsRepositoryImpl(getPool());
+        testInstance = new ReservationsRepositoryImpl(getPool(),
+                new ReservationCache(new ReservationCacheConfiguration()),
+                new RepositoryMetrics(new MetricsRegistryImpl()));
         getPool().query("DELETE FROM reservations;").executeAndAwait();
         getPool().query("DELETE FROM customers;").executeAndAwait();
-        getPool().query(format("INSERT INTO customers VALUES ('%s', 'customerEmail', 'customerName');", CUSTOMER_ID))
-                .executeAndAwait();
+        getPool().query(format("INSERT INTO customers VALUES (UUID_TO_BIN('%s'), 'customerEmail', 'customerName');",
+                CUSTOMER_ID)).executeAndAwait();
     }
 
     @Test
@@ -45,6 +53,7 @@ class ReservationRepositoryTest extends DbTest {
         Reservation updateReservation = Reservation.builder()
                 .id(reservationId)
                 .customerId(CUSTOMER_ID)
+                .unitId(ANOTHER_UNIT_ID)
                 .arrivalDate(LocalDate.of(2020, 12, 12))
                 .departureDate(LocalDate.of(2020, 12, 14))
                 .build();
@@ -54,6 +63,120 @@ class ReservationRepositoryTest extends DbTest {
         assertThat(resultReservation).isEqualTo(updateReservation);
     }
 
+    @Test
+    void notSavedWhenNightIsTaken() {
+        testInstance.save(getReservation()).await().indefinitely();
+
+        assertThatThrownBy(() -> testInstance.save(getReservation(DEPARTURE_DATE, DEPARTURE_DATE.plusDays(2)))
+                .await().indefinitely())
+                .isInstanceOf(ReservationConflictException.class);
+
+        assertThat(countRows("reservations")).isEqualTo(1);
+        assertThat(countRows("reservation_nights")).isEqualTo(DateUtil.getContinuousDates(ARRIVAL_DATE,
+                DEPARTURE_DATE).size());
+    }
+
+    @Test
+    void saveSameNightsOnAnotherUnit() {
+        testInstance.save(getReservation()).await().indefinitely();
+
+        String id = testInstance.save(getReservation().toBuilder().unitId(ANOTHER_UNIT_ID).build())
+                .await().indefinitely();
+
+        assertThat(id).isNotNull();
+    }
+
+    @Test
+    void updateOverOwnNights() {
+        String reservationId = testInstance.save(getReservation()).await().indefinitely();
+        Reservation updateReservation = getReservation(ARRIVAL_DATE.plusDays(1), DEPARTURE_DATE.plusDays(1))
+                .toBuilder().id(reservationId).build();
+
+        Reservation resultReservation = testInstance.update(updateReservation).await().indefinitely();
+
+        assertThat(resultReservation).isEqualTo(updateReservation);
+        assertThat(countRows("reservation_nights")).isEqualTo(DateUtil.getContinuousDates(ARRIVAL_DATE,
+                DEPARTURE_DATE).size());
+    }
+
+    @Test
+    void notUpdatedWhenNightIsTaken() {
+        testInstance.save(getReservation()).await().indefinitely();
+        String reservationId = testInstance.save(getReservation(DEPARTURE_DATE.plusDays(1),
+                DEPARTURE_DATE.plusDays(2))).await().indefinitely();
+        Reservation updateReservation = getReservation(DEPARTURE_DATE, DEPARTURE_DATE.plusDays(2))
+                .toBuilder().id(reservationId).build();
+
+        assertThatThrownBy(() -> testInstance.update(updateReservation).await().indefinitely())
+                .isInstanceOf(ReservationConflictException.class);
+
+        Reservation storedReservation = testInstance.getById(reservationId).await().indefinitely();
+        assertThat(storedReservation.arrivalDate()).isEqualTo(DEPARTURE_DATE.plusDays(1));
+    }
+
+    @Test
+    void updateWithNewerFence() {
+        String reservationId = testInstance.save(getReservation().toBuilder().fence(1L).build())
+                .await().indefinitely();
+        Reservation updateReservation = getReservation(ARRIVAL_DATE, DEPARTURE_DATE.plusDays(1))
+                .toBuilder().id(reservationId).fence(2L).build();
+
+        Reservation resultReservation = testInstance.update(updateReservation).await().indefinitely();
+
+        assertThat(resultReservation).isEqualTo(updateReservation);
+    }
+
+    @Test
+    void updateUnchangedReservation() {
+        String reservationId = testInstance.save(getReservation().toBuilder().fence(1L).build())
+                .await().indefinitely();
+        Reservation updateReservation = getReservation().toBuilder().id(reservationId).fence(1L).build();
+
+        Reservation resultReservation = testInstance.update(updateReservation).await().indefinitely();
+
+        assertThat(resultReservation).isEqualTo(updateReservation);
+    }
+
+    @Test
+    void notUpdatedWithStaleFence() {
+        String reservationId = testInstance.save(getReservation().toBuilder().fence(2L).build())
+                .await().indefinitely();
+        Reservation updateReservation = getReservation(ARRIVAL_DATE, DEPARTURE_DATE.plusDays(1))
+                .toBuilder().id(reservationId).fence(1L).build();
+
+        assertThatThrownBy(() -> testInstance.update(updateReservation).await().indefinitely())
+                .isInstanceOf(ReservationConflictException.class)
+                .hasMessage("Reservation was changed by a newer request.");
+
+        Reservation storedReservation = testInstance.getById(reservationId).await().indefinitely();
+        assertThat(storedReservation.departureDate()).isEqualTo(DEPARTURE_DATE);
+        assertThat(storedReservation.fence()).isEqualTo(2L);
+    }
+
+    @Test
+    void getMaxFence() {
+        testInstance.save(getReservation().toBuilder().fence(7L).build()).await().indefinitely();
+        testInstance.save(getReservation(LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 3)).toBuilder().fence(3L)
+                .build()).await().indefinitely();
+
+        assertThat(testInstance.getMaxFence().await().indefinitely()).isEqualTo(7L);
+    }
+
+    @Test
+    void getMaxFenceWithoutReservations() {
+        assertThat(testInstance.getMaxFence().await().indefinitely()).isZero();
+    }
+
+    @Test
+    void saveNightsReleasedByDelete() {
+        String reservationId = testInstance.save(getReservation()).await().indefinitely();
+        testInstance.delete(reservationId).await().indefinitely();
+
+        String id = testInstance.save(getReservation()).await().indefinitely();
+
+        assertThat(id).isNotNull();
+    }
+
     @Test
     void delete() {
         Reservation newReservation = getReservation();
@@ -72,10 +195,34 @@ class ReservationRepositoryTest extends DbTest {
         Reservation returnedReservation = testInstance.getById(reservationId).await().indefinitely();
 
         assertThat(newReservation)
-                .extracting(Reservation::arrivalDate, Reservation::departureDate, Reservation::customerId)
+                .extracting(Reservation::arrivalDate, Reservation::departureDate, Reservation::customerId,
+                        Reservation::unitId)
                 .contains(returnedReservation.arrivalDate(),
                         returnedReservation.departureDate(),
-                        returnedReservation.customerId());
+                        returnedReservation.customerId(),
+                        returnedReservation.unitId());
+    }
+
+    @Test
+    void getByIdFromCache() {
+        Reservation newReservation = getReservation();
+        String reservationId = testInstance.save(newReservation).await().indefinitely();
+        getPool().query("DELETE FROM reservations;").executeAndAwait();
+
+        Reservation returnedReservation = testInstance.getById(reservationId).await().indefinitely();
+
+        assertThat(returnedReservation).isEqualTo(newReservation.toBuilder().id(reservationId).build());
+    }
+
+    @Test
+    void doNotGetByIdAfterDelete() {
+        Reservation newReservation = getReservation();
+        String reservationId = testInstance.save(newReservation).await().indefinitely();
+        testInstance.delete(reservationId).await().indefinitely();
+
+        Reservation returnedReservation = testInstance.getById(reservationId).await().indefinitely();
+
+        assertThat(returnedReservation).isNull();
     }
 
     @Test
@@ -90,18 +237,40 @@ class ReservationRepositoryTest extends DbTest {
         Reservation newReservation = getReservation();
         testInstance.save(newReservation).await().indefinitely();
 
-        boolean hasReservation = testInstance.hasReservationBetween(ANOTHER_RESERVATION_ID, ARRIVAL_DATE,
+        boolean hasReservation = testInstance.hasReservationBetween(UNIT_ID, ANOTHER_RESERVATION_ID, ARRIVAL_DATE,
                 DEPARTURE_DATE).await().indefinitely();
 
         assertThat(hasReservation).isTrue();
     }
 
+    @Test
+    void hasReservationSpanningDates() {
+        Reservation newReservation = getReservation();
+        testInstance.save(newReservation).await().indefinitely();
+
+        boolean hasReservation = testInstance.hasReservationBetween(UNIT_ID, ANOTHER_RESERVATION_ID,
+                ARRIVAL_DATE.plusDays(1), ARRIVAL_DATE.plusDays(2)).await().indefinitely();
+
+        assertThat(hasReservation).isTrue();
+    }
+
+    @Test
+    void doesNotHaveReservationOnAnotherUnit() {
+        Reservation newReservation = getReservation();
+        testInstance.save(newReservation).await().indefinitely();
+
+        boolean hasReservation = testInstance.hasReservationBetween(ANOTHER_UNIT_ID, ANOTHER_RESERVATION_ID,
+                ARRIVAL_DATE, DEPARTURE_DATE).await().indefinitely();
+
+        assertThat(hasReservation).isFalse();
+    }
+
     @Test
     void doesNotHaveReservationBetweenDates() {
         Reservation newReservation = getReservation();
         String reservationId = testInstance.save(newReservation).await().indefinitely();
 
-        boolean hasReservation = testInstance.hasReservationBetween(reservationId, ARRIVAL_DATE.plusYears(1),
+        boolean hasReservation = testInstance.hasReservationBetween(UNIT_ID, reservationId, ARRIVAL_DATE.plusYears(1),
                 DEPARTURE_DATE.plusYears(1)).await().indefinitely();
 
         assertThat(hasReservation).isFalse();
@@ -112,18 +281,78 @@ class ReservationRepositoryTest extends DbTest {
         Reservation newReservation = getReservation();
         testInstance.save(newReservation).await().indefinitely();
 
-        List<LocalDate> returnedDatesList = testInstance.getReservedDates(ARRIVAL_DATE.minusYears(1),
+        List<LocalDate> returnedDatesList = testInstance.getReservedDates(UNIT_ID, ARRIVAL_DATE.minusYears(1),
                 DEPARTURE_DATE.plusYears(1)).collectItems().asList().await().indefinitely();
 
         List<LocalDate> expectedDates = DateUtil.getContinuousDates(ARRIVAL_DATE, DEPARTURE_DATE);
         assertThat(returnedDatesList).containsAll(expectedDates);
     }
 
+    @Test
+    void getReservedDatesOfAnotherUnit() {
+        Reservation newReservation = getReservation();
+        testInstance.save(newReservation).await().indefinitely();
+
+        List<LocalDate> returnedDatesList = testInstance.getReservedDates(ANOTHER_UNIT_ID,
+                ARRIVAL_DATE.minusYears(1), DEPARTURE_DATE.plusYears(1)).collectItems().asList().await().indefinitely();
+
+        assertThat(returnedDatesList).isEmpty();
+    }
+
+    @Test
+    void getReservedRanges() {
+        Reservation newReservation = getReservation();
+        testInstance.save(newReservation).await().indefinitely();
+
+        List<DateRange> returnedRanges = testInstance.getReservedRanges(UNIT_ID, ARRIVAL_DATE.plusDays(1),
+                DEPARTURE_DATE.plusYears(1)).collectItems().asList().await().indefinitely();
+
+        assertThat(returnedRanges).containsExactly(new DateRange(ARRIVAL_DATE.plusDays(1), DEPARTURE_DATE));
+    }
+
+    @Test
+    void getReservedRangesMerged() {
+        testInstance.save(getReservation()).await().indefinitely();
+        testInstance.save(getReservation(DEPARTURE_DATE.plusDays(1), DEPARTURE_DATE.plusDays(2)))
+                .await().indefinitely();
+        testInstance.save(getReservation(DEPARTURE_DATE.plusDays(3), DEPARTURE_DATE.plusDays(4)))
+                .await().indefinitely();
+        testInstance.save(getReservation(ARRIVAL_DATE.plusMonths(1), ARRIVAL_DATE.plusMonths(1).plusDays(2)))
+                .await().indefinitely();
+
+        List<DateRange> returnedRanges = testInstance.getReservedRanges(UNIT_ID, ARRIVAL_DATE.plusDays(1),
+                ARRIVAL_DATE.plusMonths(1).plusDays(1)).collectItems().asList().await().indefinitely();
+
+        assertThat(returnedRanges).containsExactly(
+                new DateRange(ARRIVAL_DATE.plusDays(1), DEPARTURE_DATE.plusDays(4)),
+                new DateRange(ARRIVAL_DATE.plusMonths(1), ARRIVAL_DATE.plusMonths(1).plusDays(1)));
+    }
+
+    @Test
+    void getReservedDatesWhenReservationSpansWindow() {
+        testInstance.save(getReservation()).await().indefinitely();
+
+        List<LocalDate> returnedDatesList = testInstance.getReservedDates(UNIT_ID, ARRIVAL_DATE.plusDays(1),
+                ARRIVAL_DATE.plusDays(2)).collectItems().asList().await().indefinitely();
+
+        assertThat(returnedDatesList).containsExactly(ARRIVAL_DATE.plusDays(1), ARRIVAL_DATE.plusDays(2));
+    }
+
+    private long countRows(String table) {
+        return getPool().query(format("SELECT COUNT(*) AS total FROM %s;", table)).executeAndAwait()
+                .iterator().next().getLong("total");
+    }
+
     private Reservation getReservation() {
+        return getReservation(ARRIVAL_DATE, DEPARTURE_DATE);
+    }
+
+    private Reservation getReservation(LocalDate arrivalDate, LocalDate departureDate) {
         Reservation newReservation = Reservation.builder()
                 .customerId(CUSTOMER_ID)
-                .arrivalDate(ARRIVAL_DATE)
-                .departureDate(DEPARTURE_DATE)
+                .unitId(UNIT_ID)
+                .arrivalDate(arrivalDate)
+                .departureDate(departureDate)
                 .build();
         return newReservation;
     }
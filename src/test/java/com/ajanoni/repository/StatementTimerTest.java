@@ -0,0 +1,82 @@
+package com.ajanoni.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StatementTimerTest {
+
+    private static final String STATEMENT = "reservation.get-by-id";
+    private static final String STATEMENT_EVENT = "com.ajanoni.booking.Statement";
+
+    @Mock
+    private RowSet<Row> rows;
+
+    private MetricRegistry registry;
+    private StatementTimer testInstance;
+
+    @BeforeEach
+    void setup() {
+        registry = new MetricsRegistryImpl();
+        testInstance = new RepositoryMetrics(registry).statementTimer(STATEMENT);
+    }
+
+    @Test
+    void recordTimerAndEvent() throws IOException {
+        given(rows.size()).willReturn(1);
+        given(rows.rowCount()).willReturn(0);
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(StatementEvent.class);
+            recording.start();
+            testInstance.timed(() -> Uni.createFrom().item(rows)).await().indefinitely();
+            recording.stop();
+            Path file = Files.createTempFile("statement-events", ".jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(STATEMENT_EVENT))
+                    .collect(Collectors.toList());
+            Files.delete(file);
+        }
+
+        assertThat(registry.getTimers().get(new MetricID("repository.statement", new Tag("statement", STATEMENT)))
+                .getCount()).isEqualTo(1);
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getString("statement")).isEqualTo(STATEMENT);
+            assertThat(event.getInt("rowsReturned")).isEqualTo(1);
+            assertThat(event.getInt("rowsAffected")).isZero();
+            assertThat(event.getString("failure")).isNull();
+        });
+    }
+
+    @Test
+    void recordFailedStatement() {
+        Uni<RowSet<Row>> failing = testInstance.timed(() -> Uni.createFrom().failure(new IllegalStateException()));
+
+        assertThat(failing.onFailure().recoverWithItem(rows).await().indefinitely()).isSameAs(rows);
+        assertThat(registry.getTimers().get(new MetricID("repository.statement", new Tag("statement", STATEMENT)))
+                .getCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,148 @@
+package com.ajanoni.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.ajanoni.exception.ReservationConflictException;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.mysqlclient.MySQLPool;
+import io.vertx.mutiny.sqlclient.Query;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WriteBatcherTest {
+
+    private static final String FIRST_ID = "first";
+    private static final String SECOND_ID = "second";
+
+    @Mock
+    private MySQLPool client;
+
+    @Mock
+    private SqlConnection connection;
+
+    @Mock
+    private Query<RowSet<Row>> query;
+
+    @Mock
+    private Query<RowSet<Row>> failingQuery;
+
+    @Mock
+    private UnitOfWork unitOfWork;
+
+    private WriteBatchConfiguration batchConfig;
+    private WriteBatcher testInstance;
+
+    @BeforeEach
+    void setup() {
+        batchConfig = new WriteBatchConfiguration();
+        batchConfig.setEnabled(true);
+        batchConfig.setMaxSize(2);
+        batchConfig.setWindow(Duration.ofSeconds(10));
+        testInstance = new WriteBatcher(client, unitOfWork, batchConfig);
+
+        given(client.getConnection()).willReturn(Uni.createFrom().item(connection));
+        given(connection.query(anyString())).willReturn(query);
+        given(query.execute()).willReturn(Uni.createFrom().item(() -> null));
+        given(failingQuery.execute()).willReturn(Uni.createFrom().failure(new IllegalStateException("commit")));
+    }
+
+    @Test
+    void delegateWhenDisabled() {
+        batchConfig.setEnabled(false);
+        given(unitOfWork.<String>inTransaction(any())).willReturn(Uni.createFrom().item(FIRST_ID));
+
+        String id = testInstance.submit(sqlClient -> Uni.createFrom().item(FIRST_ID)).await().indefinitely();
+
+        assertThat(id).isEqualTo(FIRST_ID);
+        then(client).should(never()).getConnection();
+    }
+
+    @Test
+    void commitConcurrentWritesOnce() {
+        CompletableFuture<String> first = submit(sqlClient -> Uni.createFrom().item(FIRST_ID));
+        CompletableFuture<String> second = submit(sqlClient -> Uni.createFrom().item(SECOND_ID));
+
+        assertThat(first.join()).isEqualTo(FIRST_ID);
+        assertThat(second.join()).isEqualTo(SECOND_ID);
+        then(client).should().getConnection();
+        then(connection).should(times(2)).query("SAVEPOINT batch_item");
+        then(connection).should().query("COMMIT");
+        then(connection).should().close();
+    }
+
+    @Test
+    void failedWriteOnlyFailsItsCaller() {
+        CompletableFuture<String> first = submit(sqlClient -> Uni.createFrom()
+                .failure(new ReservationConflictException("conflict")));
+        CompletableFuture<String> second = submit(sqlClient -> Uni.createFrom().item(SECOND_ID));
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(ReservationConflictException.class);
+        assertThat(second.join()).isEqualTo(SECOND_ID);
+        then(connection).should().query("ROLLBACK TO SAVEPOINT batch_item");
+        then(connection).should().query("COMMIT");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void runWritesAloneWhenBatchFailsBeforeCommit() {
+        given(connection.query("START TRANSACTION")).willReturn(failingQuery);
+        given(unitOfWork.<String>inTransaction(any())).willAnswer(invocation ->
+                ((Function<SqlClient, Uni<String>>) invocation.getArgument(0)).apply(connection));
+
+        CompletableFuture<String> first = submit(sqlClient -> Uni.createFrom().item(FIRST_ID));
+        CompletableFuture<String> second = submit(sqlClient -> Uni.createFrom().item(SECOND_ID));
+
+        assertThat(first.join()).isEqualTo(FIRST_ID);
+        assertThat(second.join()).isEqualTo(SECOND_ID);
+        then(connection).should(never()).query("COMMIT");
+        then(unitOfWork).should(times(2)).inTransaction(any());
+    }
+
+    @Test
+    void failWritesWhenBatchCommitFails() {
+        given(connection.query("COMMIT")).willReturn(failingQuery);
+
+        CompletableFuture<String> first = submit(sqlClient -> Uni.createFrom().item(FIRST_ID));
+        CompletableFuture<String> second = submit(sqlClient -> Uni.createFrom().item(SECOND_ID));
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+        then(unitOfWork).should(never()).inTransaction(any());
+    }
+
+    @Test
+    void flushAfterWindow() {
+        batchConfig.setMaxSize(10);
+        batchConfig.setWindow(Duration.ofMillis(10));
+
+        CompletableFuture<String> first = submit(sqlClient -> Uni.createFrom().item(FIRST_ID));
+
+        assertThat(first.join()).isEqualTo(FIRST_ID);
+        then(connection).should().query("COMMIT");
+    }
+
+    private CompletableFuture<String> submit(Function<SqlClient, Uni<String>> work) {
+        return testInstance.submit(work).subscribeAsCompletionStage();
+    }
+}
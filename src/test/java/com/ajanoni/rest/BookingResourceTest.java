@@ -3,12 +3,20 @@ package com.ajanoni.rest;
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import com.ajanoni.common.DateUtil;
 import com.ajanoni.dto.AvailableDateResult;
+import com.ajanoni.dto.AvailableRangeResult;
 import com.ajanoni.dto.ReservationCommand;
 import com.ajanoni.dto.ReservationCommandResult;
+import com.ajanoni.dto.ScheduleBatchQuery;
+import com.ajanoni.dto.ScheduleWindow;
+import com.ajanoni.dto.ScheduleWindowResult;
 import com.ajanoni.service.booking.BookingCommandHandler;
 import com.ajanoni.service.booking.BookingQueryHandler;
 import io.quarkus.test.junit.QuarkusTest;
@@ -20,6 +28,7 @@ import io.restassured.http.ContentType;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
@@ -32,6 +41,7 @@ class BookingResourceTest {
     private static final LocalDate START_DATE = LocalDate.of(2020, 01, 01);
     private static final LocalDate END_DATE = LocalDate.of(2020, 01, 10);
     private static final String RESERVATION_ID = "reservationId";
+    private static final String UNIT_ID = "room-1";
     private static final String EMAIL = "test@test.com";
     private static final String FULL_NAME = "full name";
 
@@ -49,7 +59,7 @@ class BookingResourceTest {
         List<AvailableDateResult> sequenceDates = DateUtil.getContinuousDates(START_DATE, END_DATE).stream()
                 .map(date -> new AvailableDateResult(date))
                 .collect(Collectors.toUnmodifiableList());
-        given(queryCommand.getAvailableDates(START_DATE, END_DATE))
+        given(queryCommand.getAvailableDates(null, START_DATE, END_DATE))
                 .willReturn(Multi.createFrom().iterable(sequenceDates));
         String jsonSequenceDates = objectMapper.writeValueAsString(sequenceDates);
 
@@ -64,6 +74,85 @@ class BookingResourceTest {
                 .body(is(jsonSequenceDates));
     }
 
+    @Test
+    void getAvailableDaysOfUnit() throws Exception {
+        given(queryCommand.getAvailableDates(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().item(new AvailableDateResult(START_DATE)));
+
+        given()
+                .queryParam("startDate", DateTimeFormatter.ISO_DATE.format(START_DATE))
+                .queryParam("endDate", DateTimeFormatter.ISO_DATE.format(END_DATE))
+                .queryParam("unitId", UNIT_ID)
+                .when()
+                .get("/booking/schedule")
+                .then()
+                .statusCode(HttpStatus.SC_OK)
+                .body(is("[{\"date\":\"2020-01-01\"}]"));
+    }
+
+    @Test
+    void getAvailableDaysNotModified() throws Exception {
+        given(queryCommand.getAvailableDates(null, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().item(new AvailableDateResult(START_DATE)));
+
+        String entityTag = given()
+                .queryParam("startDate", DateTimeFormatter.ISO_DATE.format(START_DATE))
+                .queryParam("endDate", DateTimeFormatter.ISO_DATE.format(END_DATE))
+                .when()
+                .get("/booking/schedule")
+                .then()
+                .statusCode(HttpStatus.SC_OK)
+                .header("Vary", "Accept")
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", entityTag)
+                .queryParam("startDate", DateTimeFormatter.ISO_DATE.format(START_DATE))
+                .queryParam("endDate", DateTimeFormatter.ISO_DATE.format(END_DATE))
+                .when()
+                .get("/booking/schedule")
+                .then()
+                .statusCode(HttpStatus.SC_NOT_MODIFIED);
+
+        verify(queryCommand, times(1)).getAvailableDates(null, START_DATE, END_DATE);
+    }
+
+    @Test
+    void getAvailableRanges() throws Exception {
+        List<AvailableRangeResult> ranges = List.of(new AvailableRangeResult(START_DATE, START_DATE.plusDays(2)),
+                new AvailableRangeResult(END_DATE, END_DATE));
+        given(queryCommand.getAvailableRanges(null, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().iterable(ranges));
+
+        given()
+                .queryParam("startDate", DateTimeFormatter.ISO_DATE.format(START_DATE))
+                .queryParam("endDate", DateTimeFormatter.ISO_DATE.format(END_DATE))
+                .queryParam("format", "ranges")
+                .when()
+                .get("/booking/schedule")
+                .then()
+                .statusCode(HttpStatus.SC_OK)
+                .contentType(AvailableRangeResult.MEDIA_TYPE)
+                .body(is("[[\"2020-01-01\",\"2020-01-03\"],[\"2020-01-10\",\"2020-01-10\"]]"));
+    }
+
+    @Test
+    void getAvailableRangesByAcceptHeader() throws Exception {
+        given(queryCommand.getAvailableRanges(null, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().item(new AvailableRangeResult(START_DATE, END_DATE)));
+
+        given()
+                .accept(AvailableRangeResult.MEDIA_TYPE)
+                .queryParam("startDate", DateTimeFormatter.ISO_DATE.format(START_DATE))
+                .queryParam("endDate", DateTimeFormatter.ISO_DATE.format(END_DATE))
+                .when()
+                .get("/booking/schedule")
+                .then()
+                .statusCode(HttpStatus.SC_OK)
+                .body(is("[[\"2020-01-01\",\"2020-01-10\"]]"));
+    }
+
     @Test
     void getAvailableDaysBadDate() throws Exception {
         given()
@@ -76,11 +165,57 @@ class BookingResourceTest {
                 .body("errors.message[0]", is("Invalid date format."));
     }
 
+    @Test
+    void getAvailableDaysBatch() throws Exception {
+        ScheduleBatchQuery query = ScheduleBatchQuery.builder()
+                .windows(List.of(new ScheduleWindow(START_DATE, START_DATE.plusDays(1)),
+                        new ScheduleWindow(END_DATE, END_DATE)))
+                .build();
+        List<ScheduleWindowResult> results = List.of(
+                new ScheduleWindowResult(START_DATE, START_DATE.plusDays(1),
+                        List.of(new AvailableDateResult(START_DATE, 2))),
+                new ScheduleWindowResult(END_DATE, END_DATE, List.of()));
+        given(queryCommand.getAvailableDates(query)).willReturn(Uni.createFrom().item(results));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(query)
+                .when()
+                .post("/booking/schedule/batch")
+                .then()
+                .statusCode(HttpStatus.SC_OK)
+                .body(is(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void batchQueryRequiredWindows() throws Exception {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{ \"windows\": [] }")
+                .when()
+                .post("/booking/schedule/batch")
+                .then()
+                .statusCode(HttpStatus.SC_BAD_REQUEST)
+                .body("errors.message[0]", is("Field windows is required."));
+    }
+
+    @Test
+    void batchQueryNullWindow() throws Exception {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{ \"windows\": [null] }")
+                .when()
+                .post("/booking/schedule/batch")
+                .then()
+                .statusCode(HttpStatus.SC_BAD_REQUEST)
+                .body("errors.message[0]", is("Field windows must not contain null."));
+    }
+
     @Test
     void createReservation() throws Exception {
         ReservationCommand command = getReservation();
 
-        given(bookingCommand.createReservationWithLock(command))
+        given(bookingCommand.createReservationWithLock(eq(command), any()))
                 .willReturn(Uni.createFrom().item(RESERVATION_ID));
 
         ReservationCommandResult result = new ReservationCommandResult(RESERVATION_ID);
@@ -94,11 +229,35 @@ class BookingResourceTest {
                 .body(is(objectMapper.writeValueAsString(result)));
     }
 
+    @Test
+    void createReservationReplayed() throws Exception {
+        ReservationCommand command = getReservation();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        given(bookingCommand.createReservationWithLock(eq(command), any()))
+                .willReturn(Uni.createFrom().item(RESERVATION_ID));
+
+        ReservationCommandResult result = new ReservationCommandResult(RESERVATION_ID);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            given()
+                    .header("Idempotency-Key", idempotencyKey)
+                    .contentType(ContentType.JSON)
+                    .body(command)
+                    .when()
+                    .post("/booking")
+                    .then()
+                    .statusCode(HttpStatus.SC_OK)
+                    .body(is(objectMapper.writeValueAsString(result)));
+        }
+
+        verify(bookingCommand, times(1)).createReservationWithLock(eq(command), any());
+    }
+
     @Test
     void updateReservation() throws Exception {
         ReservationCommand command = getReservation();
 
-        given(bookingCommand.updateReservationWithLock(RESERVATION_ID, command))
+        given(bookingCommand.updateReservationWithLock(eq(RESERVATION_ID), eq(command), any()))
                 .willReturn(Uni.createFrom().item(RESERVATION_ID));
 
         ReservationCommandResult result = new ReservationCommandResult(RESERVATION_ID);
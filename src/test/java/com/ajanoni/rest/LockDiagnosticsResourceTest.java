@@ -0,0 +1,29 @@
+package com.ajanoni.rest;
+
+import static io.restassured.RestAssured.given;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.ajanoni.service.lock.LockDiagnosticsQueryHandler;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.mockito.InjectMock;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+class LockDiagnosticsResourceTest {
+
+    @InjectMock
+    private LockDiagnosticsQueryHandler lockDiagnosticsQuery;
+
+    @Test
+    void notFoundWhenDisabled() {
+        given()
+                .when().get("/admin/locks")
+                .then()
+                .statusCode(HttpStatus.SC_NOT_FOUND);
+
+        verify(lockDiagnosticsQuery, never()).getDiagnostics(anyInt());
+    }
+}
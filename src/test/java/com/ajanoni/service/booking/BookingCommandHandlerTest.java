@@ -2,22 +2,32 @@ package com.ajanoni.service.booking;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import com.ajanoni.common.DateUtil;
 import com.ajanoni.dto.ReservationCommand;
+import com.ajanoni.exception.LockAcquireException;
 import com.ajanoni.exception.ReservationConflictException;
 import com.ajanoni.lock.LockHandler;
 import com.ajanoni.repository.ReservationRepository;
+import com.ajanoni.repository.UnitOfWork;
+import com.ajanoni.repository.WriteBatcher;
 import com.ajanoni.repository.model.Reservation;
+import com.ajanoni.service.calendar.OccupancyCalendar;
 import com.ajanoni.service.customer.CustomerCommandHandler;
+import com.ajanoni.service.inventory.InventoryConfiguration;
+import com.ajanoni.tracing.StageTimings;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.SqlClient;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.function.Supplier;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,12 +50,17 @@ class BookingCommandHandlerTest {
     private static final String EMAIL = "email@email";
     private static final String FULL_NAME = "full name";
     private static final String CUSTOMER_ID = "customerId";
+    private static final String UNIT_ID = "room-1";
+    private static final String DEFAULT_UNIT_ID = "default";
+    private static final long FENCE = 7L;
+    private static final StageTimings NO_TIMINGS = StageTimings.disabled();
 
     private static final ReservationCommand INSERT_COMMAND = ReservationCommand.builder()
             .email(EMAIL)
             .fullName(FULL_NAME)
             .arrivalDate(START_DATE)
             .departureDate(END_DATE)
+            .unitId(UNIT_ID)
             .build();
 
     private static final ReservationCommand UPDATE_COMMAND = ReservationCommand.builder()
@@ -57,6 +72,7 @@ class BookingCommandHandlerTest {
 
     private static final Reservation RESERVATION = Reservation.builder()
             .customerId(CUSTOMER_ID)
+            .unitId(UNIT_ID)
             .arrivalDate(START_DATE)
             .departureDate(END_DATE)
             .build();
@@ -64,10 +80,15 @@ class BookingCommandHandlerTest {
     private static final Reservation UPDATED_RESERVATION = Reservation.builder()
             .id(ID)
             .customerId(CUSTOMER_ID)
+            .unitId(UNIT_ID)
             .arrivalDate(UPDATED_START_DATE)
             .departureDate(UPDATED_END_DATE)
             .build();
 
+    private static final Reservation FENCED_RESERVATION = RESERVATION.toBuilder().fence(FENCE).build();
+
+    private static final Reservation FENCED_UPDATED_RESERVATION = UPDATED_RESERVATION.toBuilder().fence(FENCE).build();
+
     @Mock
     private CustomerCommandHandler customerService;
 
@@ -77,11 +98,32 @@ class BookingCommandHandlerTest {
     @Mock
     private BookingValidationHandler bookingRules;
 
+    @Mock
+    private UnitOfWork unitOfWork;
+
+    @Mock
+    private WriteBatcher writeBatcher;
+
+    @Mock
+    private SqlClient sqlClient;
+
     @Mock
     private LockHandler lockHandler;
 
+    @Mock
+    private OccupancyCalendar occupancyCalendar;
+
+    @Mock
+    private InventoryConfiguration inventoryConfig;
+
+    @Mock
+    private BookingConfiguration bookingConfig;
+
+    @Mock
+    private BookingMetrics bookingMetrics;
+
     @Captor
-    private ArgumentCaptor<Supplier<Uni<String>>> supplierCaptor;
+    private ArgumentCaptor<LongFunction<Uni<String>>> workCaptor;
 
     @InjectMocks
     private BookingCommandHandler testInstance;
@@ -93,67 +135,187 @@ class BookingCommandHandlerTest {
 
     @Test
     void createReservationWithLock() {
-        given(bookingRules.validateRequest(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
-        given(reservationRepository.hasReservationBetween(StringUtils.EMPTY, INSERT_COMMAND.getArrivalDate(),
-                INSERT_COMMAND.getDepartureDate())).willReturn(Uni.createFrom().item(false));
-        given(lockHandler.executeWithLock(eq(getLockIdsInsert()), supplierCaptor.capture()))
+        mockInsertValidation(UNIT_ID);
+        given(lockHandler.executeWithLock(eq(getLockIds(UNIT_ID, INSERT_COMMAND)), workCaptor.capture()))
                 .willReturn(Uni.createFrom().item(ID));
-        given(customerService.updateOrCreateCustomer(EMAIL, FULL_NAME)).willReturn(Uni.createFrom().item(CUSTOMER_ID));
-        given(reservationRepository.save(RESERVATION))
+        mockBatchedWrite();
+        given(reservationRepository.hasReservationBetween(sqlClient, UNIT_ID, StringUtils.EMPTY,
+                INSERT_COMMAND.getArrivalDate(), INSERT_COMMAND.getDepartureDate()))
+                .willReturn(Uni.createFrom().item(false));
+        given(customerService.updateOrCreateCustomer(sqlClient, EMAIL, FULL_NAME))
+                .willReturn(Uni.createFrom().item(CUSTOMER_ID));
+        given(reservationRepository.save(sqlClient, FENCED_RESERVATION))
                 .willReturn(Uni.createFrom().item(ID));
 
-        String returnedId = testInstance.createReservationWithLock(INSERT_COMMAND).await().indefinitely();
-        String lambdaId = supplierCaptor.getValue().get().await().indefinitely();
+        String returnedId = testInstance.createReservationWithLock(INSERT_COMMAND, NO_TIMINGS).await().indefinitely();
+        String lambdaId = workCaptor.getValue().apply(FENCE).await().indefinitely();
 
         assertThat(returnedId).isEqualTo(ID);
         assertThat(lambdaId).isEqualTo(ID);
+        then(occupancyCalendar).should().book(UNIT_ID, START_DATE, END_DATE);
+    }
+
+    @Test
+    void createReservationTimesStages() {
+        mockInsertValidation(UNIT_ID);
+        given(lockHandler.executeWithLock(eq(getLockIds(UNIT_ID, INSERT_COMMAND)), workCaptor.capture()))
+                .willReturn(Uni.createFrom().item(ID));
+        mockBatchedWrite();
+        given(reservationRepository.hasReservationBetween(sqlClient, UNIT_ID, StringUtils.EMPTY,
+                INSERT_COMMAND.getArrivalDate(), INSERT_COMMAND.getDepartureDate()))
+                .willReturn(Uni.createFrom().item(false));
+        given(customerService.updateOrCreateCustomer(sqlClient, EMAIL, FULL_NAME))
+                .willReturn(Uni.createFrom().item(CUSTOMER_ID));
+        given(reservationRepository.save(sqlClient, FENCED_RESERVATION))
+                .willReturn(Uni.createFrom().item(ID));
+        StageTimings timings = StageTimings.start("booking.create");
+
+        testInstance.createReservationWithLock(INSERT_COMMAND, timings).await().indefinitely();
+        workCaptor.getValue().apply(FENCE).await().indefinitely();
+
+        assertThat(timings.getStages()).extracting(StageTimings.Stage::name)
+                .containsExactly(StageTimings.VALIDATE, StageTimings.LOCK, StageTimings.CONFLICT_CHECK,
+                        StageTimings.CUSTOMER, StageTimings.INSERT);
+    }
+
+    @Test
+    void createReservationOnDefaultUnit() {
+        ReservationCommand command = ReservationCommand.builder()
+                .email(EMAIL)
+                .fullName(FULL_NAME)
+                .arrivalDate(START_DATE)
+                .departureDate(END_DATE)
+                .build();
+        given(inventoryConfig.getDefaultUnit()).willReturn(DEFAULT_UNIT_ID);
+        mockInsertValidation(DEFAULT_UNIT_ID);
+        given(lockHandler.executeWithLock(eq(getLockIds(DEFAULT_UNIT_ID, command)), workCaptor.capture()))
+                .willReturn(Uni.createFrom().item(ID));
+
+        String returnedId = testInstance.createReservationWithLock(command, NO_TIMINGS).await().indefinitely();
+
+        assertThat(returnedId).isEqualTo(ID);
     }
 
     @Test
     void notCreatedWhenConflict() {
-        given(bookingRules.validateRequest(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
-        given(reservationRepository.hasReservationBetween(StringUtils.EMPTY, START_DATE,
+        mockInsertValidation(UNIT_ID);
+        given(lockHandler.executeWithLock(eq(getLockIds(UNIT_ID, INSERT_COMMAND)), workCaptor.capture()))
+                .willReturn(Uni.createFrom().item(ID));
+        mockBatchedWrite();
+        given(reservationRepository.hasReservationBetween(sqlClient, UNIT_ID, StringUtils.EMPTY, START_DATE,
                 END_DATE)).willReturn(Uni.createFrom().item(true));
 
-        assertThatThrownBy(() -> testInstance.createReservationWithLock(INSERT_COMMAND).await().indefinitely())
+        testInstance.createReservationWithLock(INSERT_COMMAND, NO_TIMINGS).await().indefinitely();
+        assertThatThrownBy(() -> workCaptor.getValue().apply(FENCE).await().indefinitely())
             .isInstanceOf(ReservationConflictException.class)
             .hasMessage("Other reservation conflicts with the selected dates.");
 
-        verifyNoInteractions(customerService);
+        verifyNoInteractions(customerService, occupancyCalendar);
+        verifyNoMoreInteractions(reservationRepository);
+    }
+
+    @Test
+    void notCreatedWhenLockIsTaken() {
+        mockInsertValidation(UNIT_ID);
+        given(lockHandler.executeWithLock(eq(getLockIds(UNIT_ID, INSERT_COMMAND)), workCaptor.capture()))
+                .willReturn(Uni.createFrom().failure(new LockAcquireException("Unable to get the lock.")));
+
+        assertThatThrownBy(() -> testInstance.createReservationWithLock(INSERT_COMMAND, NO_TIMINGS).await()
+                .indefinitely())
+                .isInstanceOf(ReservationConflictException.class)
+                .hasMessage("Other reservation conflicts with the selected dates.");
+    }
+
+    @Test
+    void createReservationInDatabaseMode() {
+        given(bookingConfig.getMode()).willReturn(BookingConfiguration.MODE_DATABASE);
+        mockInsertValidation(UNIT_ID);
+        mockBatchedWrite();
+        given(customerService.updateOrCreateCustomer(sqlClient, EMAIL, FULL_NAME))
+                .willReturn(Uni.createFrom().item(CUSTOMER_ID));
+        given(reservationRepository.save(sqlClient, RESERVATION)).willReturn(Uni.createFrom().item(ID));
+
+        String returnedId = testInstance.createReservationWithLock(INSERT_COMMAND, NO_TIMINGS).await().indefinitely();
+
+        assertThat(returnedId).isEqualTo(ID);
+        then(occupancyCalendar).should().book(UNIT_ID, START_DATE, END_DATE);
+        verifyNoInteractions(lockHandler);
         verifyNoMoreInteractions(reservationRepository);
     }
 
+    @Test
+    void notCreatedWhenDatabaseRejectsNights() {
+        given(bookingConfig.getMode()).willReturn(BookingConfiguration.MODE_DATABASE);
+        mockInsertValidation(UNIT_ID);
+        mockBatchedWrite();
+        given(customerService.updateOrCreateCustomer(sqlClient, EMAIL, FULL_NAME))
+                .willReturn(Uni.createFrom().item(CUSTOMER_ID));
+        given(reservationRepository.save(sqlClient, RESERVATION)).willReturn(Uni.createFrom()
+                .failure(new ReservationConflictException("Other reservation conflicts with the selected dates.")));
+
+        assertThatThrownBy(() -> testInstance.createReservationWithLock(INSERT_COMMAND, NO_TIMINGS).await()
+                .indefinitely())
+                .isInstanceOf(ReservationConflictException.class);
+
+        verifyNoInteractions(lockHandler, occupancyCalendar);
+    }
+
+    @Test
+    void updateReservationInDatabaseMode() {
+        given(bookingConfig.getMode()).willReturn(BookingConfiguration.MODE_DATABASE);
+        mockUpdateValidation();
+        mockTransaction();
+        given(customerService.updateCustomer(sqlClient, CUSTOMER_ID, UPDATE_COMMAND.getEmail(),
+                UPDATE_COMMAND.getFullName())).willReturn(Uni.createFrom().item(CUSTOMER_ID));
+        given(reservationRepository.update(sqlClient, UPDATED_RESERVATION))
+                .willReturn(Uni.createFrom().item(UPDATED_RESERVATION));
+
+        String returnedId = testInstance.updateReservationWithLock(ID, UPDATE_COMMAND, NO_TIMINGS).await()
+                .indefinitely();
+
+        assertThat(returnedId).isEqualTo(ID);
+        verifyNoInteractions(lockHandler);
+        then(reservationRepository).should().invalidateCached(ID);
+    }
+
     @Test
     void updateReservationWithLock() {
         mockUpdateValidation();
-        given(reservationRepository.hasReservationBetween(ID, UPDATE_COMMAND.getArrivalDate(),
-                UPDATE_COMMAND.getDepartureDate())).willReturn(Uni.createFrom().item(false));
-        given(lockHandler.executeWithLock(eq(getLockIdsUpdate()), supplierCaptor.capture()))
+        given(lockHandler.executeWithLock(eq(getLockIds(UNIT_ID, UPDATE_COMMAND)), workCaptor.capture()))
                 .willReturn(Uni.createFrom().item(ID));
-        given(customerService.updateCustomer(CUSTOMER_ID, UPDATE_COMMAND.getEmail(),
+        mockTransaction();
+        given(reservationRepository.hasReservationBetween(sqlClient, UNIT_ID, ID, UPDATE_COMMAND.getArrivalDate(),
+                UPDATE_COMMAND.getDepartureDate())).willReturn(Uni.createFrom().item(false));
+        given(customerService.updateCustomer(sqlClient, CUSTOMER_ID, UPDATE_COMMAND.getEmail(),
                 UPDATE_COMMAND.getFullName())).willReturn(Uni.createFrom().item(CUSTOMER_ID));
-        given(reservationRepository.update(UPDATED_RESERVATION))
+        given(reservationRepository.update(sqlClient, FENCED_UPDATED_RESERVATION))
                 .willReturn(Uni.createFrom().item(UPDATED_RESERVATION));
 
-        String returnedId = testInstance.updateReservationWithLock(ID, UPDATE_COMMAND).await().indefinitely();
-        String lambdaId = supplierCaptor.getValue().get().await().indefinitely();
+        String returnedId = testInstance.updateReservationWithLock(ID, UPDATE_COMMAND, NO_TIMINGS).await()
+                .indefinitely();
+        String lambdaId = workCaptor.getValue().apply(FENCE).await().indefinitely();
 
         assertThat(returnedId).isEqualTo(ID);
         assertThat(lambdaId).isEqualTo(ID);
+        then(occupancyCalendar).should().book(UNIT_ID, UPDATED_START_DATE, UPDATED_END_DATE);
     }
 
     @Test
     void notUpdateWhenConflict() {
         mockUpdateValidation();
-        given(reservationRepository.hasReservationBetween(ID, UPDATED_START_DATE, UPDATED_END_DATE))
-                .willReturn(Uni.createFrom().item(true));
+        given(lockHandler.executeWithLock(eq(getLockIds(UNIT_ID, UPDATE_COMMAND)), workCaptor.capture()))
+                .willReturn(Uni.createFrom().item(ID));
+        mockTransaction();
+        given(reservationRepository.hasReservationBetween(sqlClient, UNIT_ID, ID, UPDATED_START_DATE,
+                UPDATED_END_DATE)).willReturn(Uni.createFrom().item(true));
 
-        assertThatThrownBy(() -> testInstance.updateReservationWithLock(ID, UPDATE_COMMAND).await().indefinitely())
+        testInstance.updateReservationWithLock(ID, UPDATE_COMMAND, NO_TIMINGS).await().indefinitely();
+        assertThatThrownBy(() -> workCaptor.getValue().apply(FENCE).await().indefinitely())
                 .isInstanceOf(ReservationConflictException.class)
                 .hasMessage("Other reservation conflicts with the selected dates.");
 
-        verifyNoInteractions(customerService);
-        verifyNoMoreInteractions(reservationRepository);
+        verifyNoInteractions(customerService, occupancyCalendar);
+        then(reservationRepository).should().invalidateCached(ID);
     }
 
     @Test
@@ -164,6 +326,7 @@ class BookingCommandHandlerTest {
         String deletedId = testInstance.deleteReservation(ID).await().indefinitely();
 
         assertThat(deletedId).isEqualTo(ID);
+        then(occupancyCalendar).should().release(UNIT_ID, UPDATED_START_DATE, UPDATED_END_DATE);
     }
 
     @Test
@@ -176,25 +339,35 @@ class BookingCommandHandlerTest {
             .hasMessage("Error on deleting reservation.");
     }
 
-    private List<String> getLockIdsInsert() {
+    private List<String> getLockIds(String unitId, ReservationCommand command) {
         List<String> lockDates =
-                DateUtil.getContinuousDates(INSERT_COMMAND.getArrivalDate(), INSERT_COMMAND.getDepartureDate()).stream()
-                        .map(LocalDate::toString)
+                DateUtil.getContinuousDates(command.getArrivalDate(), command.getDepartureDate()).stream()
+                        .map(date -> unitId + ":" + date)
                         .collect(Collectors.toList());
         return lockDates;
     }
 
-    private List<String> getLockIdsUpdate() {
-        List<String> lockDates =
-                DateUtil.getContinuousDates(UPDATE_COMMAND.getArrivalDate(), UPDATE_COMMAND.getDepartureDate()).stream()
-                        .map(LocalDate::toString)
-                        .collect(Collectors.toList());
-        return lockDates;
+    @SuppressWarnings("unchecked")
+    private void mockTransaction() {
+        given(unitOfWork.inTransaction(any())).willAnswer(invocation ->
+                ((Function<SqlClient, Uni<String>>) invocation.getArgument(0)).apply(sqlClient));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockBatchedWrite() {
+        given(writeBatcher.submit(any())).willAnswer(invocation ->
+                ((Function<SqlClient, Uni<String>>) invocation.getArgument(0)).apply(sqlClient));
+    }
+
+    private void mockInsertValidation(String unitId) {
+        given(bookingRules.validateRequest(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(unitId)).willReturn(Uni.createFrom().voidItem());
     }
 
     private void mockUpdateValidation() {
         given(bookingRules.validateRequest(UPDATED_START_DATE, UPDATED_END_DATE))
                 .willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(null)).willReturn(Uni.createFrom().voidItem());
         given(reservationRepository.getById(ID)).willReturn(Uni.createFrom().item(UPDATED_RESERVATION));
     }
 }
@@ -0,0 +1,73 @@
+package com.ajanoni.service.booking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ajanoni.exception.LockAcquireException;
+import com.ajanoni.exception.ReservationConflictException;
+import com.ajanoni.exception.ReservationNotFoundException;
+import com.ajanoni.exception.ReservationRequestException;
+import com.ajanoni.service.booking.BookingMetrics.Command;
+import com.ajanoni.service.booking.BookingMetrics.Outcome;
+import com.ajanoni.service.booking.BookingMetrics.Query;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Uni;
+import java.time.LocalDate;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BookingMetricsTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2020, 1, 1);
+
+    private MetricRegistry registry;
+    private BookingMetrics testInstance;
+
+    @BeforeEach
+    void setup() {
+        registry = new MetricsRegistryImpl();
+        testInstance = new BookingMetrics(registry);
+    }
+
+    @Test
+    void classifyOutcomes() {
+        assertThat(BookingMetrics.outcome(null)).isEqualTo(Outcome.SUCCESS);
+        assertThat(BookingMetrics.outcome(new ReservationConflictException("conflict")))
+                .isEqualTo(Outcome.CONFLICT);
+        assertThat(BookingMetrics.outcome(new ReservationConflictException("conflict",
+                new LockAcquireException("timeout")))).isEqualTo(Outcome.LOCK_TIMEOUT);
+        assertThat(BookingMetrics.outcome(new ReservationRequestException("invalid")))
+                .isEqualTo(Outcome.VALIDATION_ERROR);
+        assertThat(BookingMetrics.outcome(new ReservationNotFoundException("id"))).isEqualTo(Outcome.NOT_FOUND);
+        assertThat(BookingMetrics.outcome(new IllegalStateException())).isEqualTo(Outcome.ERROR);
+    }
+
+    @Test
+    void countCommandsByOutcome() {
+        testInstance.recordCommand(Command.CREATE, null);
+        testInstance.recordCommand(Command.CREATE, new ReservationConflictException("conflict"));
+        testInstance.recordCommand(Command.CREATE, new ReservationConflictException("conflict"));
+
+        assertThat(commandCount("create", "success")).isEqualTo(1);
+        assertThat(commandCount("create", "conflict")).isEqualTo(2);
+        assertThat(commandCount("update", "success")).isZero();
+    }
+
+    @Test
+    void timeQueriesAndRecordWindow() {
+        testInstance.timed(Query.BATCH, START_DATE, START_DATE.plusDays(9), () -> Uni.createFrom().item(1))
+                .await().indefinitely();
+
+        MetricID metricId = new MetricID("booking.schedule.query", new Tag("query", "batch"));
+        assertThat(registry.getTimers().get(metricId).getCount()).isEqualTo(1);
+        MetricID windowId = new MetricID("booking.schedule.window", new Tag("query", "batch"));
+        assertThat(registry.getHistograms().get(windowId).getSnapshot().getMax()).isEqualTo(10);
+    }
+
+    private long commandCount(String command, String outcome) {
+        MetricID metricId = new MetricID("booking.commands", new Tag("command", command), new Tag("outcome", outcome));
+        return registry.getCounters().get(metricId).getCount();
+    }
+}
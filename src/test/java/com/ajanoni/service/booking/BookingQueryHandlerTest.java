@@ -1,27 +1,51 @@
 package com.ajanoni.service.booking;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
 
+import com.ajanoni.common.DateRange;
 import com.ajanoni.common.DateUtil;
 import com.ajanoni.dto.AvailableDateResult;
+import com.ajanoni.dto.AvailableRangeResult;
+import com.ajanoni.dto.ScheduleBatchQuery;
+import com.ajanoni.dto.ScheduleChangeResult;
+import com.ajanoni.dto.ScheduleWindow;
+import com.ajanoni.dto.ScheduleWindowResult;
+import com.ajanoni.exception.ReservationRequestException;
 import com.ajanoni.repository.ReservationRepository;
+import com.ajanoni.service.calendar.CalendarChange;
+import com.ajanoni.service.calendar.CalendarChangeFeed;
+import com.ajanoni.service.calendar.OccupancyCalendar;
+import com.ajanoni.service.inventory.InventoryConfiguration;
+import io.smallrye.metrics.MetricsRegistryImpl;
 import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.TimeoutException;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 @ExtendWith(MockitoExtension.class)
 class BookingQueryHandlerTest {
 
     private static LocalDate START_DATE = LocalDate.of(2020, 1, 1);
     private static LocalDate END_DATE = LocalDate.of(2020, 2, 1);
+    private static final String UNIT_ID = "room-1";
+    private static final String ANOTHER_UNIT_ID = "room-2";
 
     @Mock
     private ReservationRepository reservationRepository;
@@ -29,17 +53,26 @@ class BookingQueryHandlerTest {
     @Mock
     private BookingValidationHandler bookingRules;
 
+    @Mock
+    private OccupancyCalendar occupancyCalendar;
+
+    @Mock
+    private CalendarChangeFeed calendarChangeFeed;
+
     private BookingQueryHandler testInstance;
 
     @BeforeEach
     void setup() {
-        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
-        testInstance = new BookingQueryHandler(reservationRepository, bookingRules);
+        InventoryConfiguration inventoryConfig = new InventoryConfiguration();
+        inventoryConfig.setUnits(List.of(UNIT_ID, ANOTHER_UNIT_ID));
+        testInstance = new BookingQueryHandler(reservationRepository, bookingRules, occupancyCalendar,
+                calendarChangeFeed, inventoryConfig, new BookingMetrics(new MetricsRegistryImpl()));
     }
 
     @Test
     void getAvailableDates() {
-        given(reservationRepository.getReservedDates(START_DATE, END_DATE)).willReturn(Multi.createFrom().empty());
+        given(reservationRepository.getReservedDates(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().empty());
 
         List<LocalDate> availableList = getAvailableList();
 
@@ -51,7 +84,7 @@ class BookingQueryHandlerTest {
     void getAvailableDatesWhenHasReservations() {
         LocalDate reservedDateOne = START_DATE.plusDays(1);
         LocalDate reservedDateTwo = START_DATE.plusDays(2);
-        given(reservationRepository.getReservedDates(START_DATE, END_DATE))
+        given(reservationRepository.getReservedDates(UNIT_ID, START_DATE, END_DATE))
                 .willReturn(Multi.createFrom().items(reservedDateOne, reservedDateTwo));
 
         List<LocalDate> availableList = getAvailableList();
@@ -62,8 +95,259 @@ class BookingQueryHandlerTest {
         assertThat(availableList).containsExactlyElementsOf(expectedList);
     }
 
+    @Test
+    void streamAvailableDatesOnDemand() {
+        given(reservationRepository.getReservedDates(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().items(START_DATE).emitOn(Infrastructure.getDefaultExecutor()));
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(UNIT_ID)).willReturn(Uni.createFrom().voidItem());
+        List<LocalDate> received = new ArrayList<>();
+        CompletableFuture<Subscription> subscribed = new CompletableFuture<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE).subscribe()
+                .withSubscriber(new Subscriber<AvailableDateResult>() {
+                    @Override
+                    public void onSubscribe(Subscription subscription) {
+                        subscribed.complete(subscription);
+                    }
+
+                    @Override
+                    public void onNext(AvailableDateResult result) {
+                        synchronized (received) {
+                            received.add(result.getDate());
+                            if (received.size() == 2) {
+                                completed.complete(null);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        completed.completeExceptionally(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.complete(null);
+                    }
+                });
+        subscribed.join().request(2);
+        completed.join();
+
+        synchronized (received) {
+            assertThat(received).containsExactly(START_DATE.plusDays(1), START_DATE.plusDays(2));
+        }
+    }
+
+    @Test
+    void failWhenReservedDatesTimeOut() {
+        given(reservationRepository.getReservedDates(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().nothing());
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(UNIT_ID)).willReturn(Uni.createFrom().voidItem());
+
+        assertThatThrownBy(() -> testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE).collectItems()
+                .asList()
+                .await()
+                .atMost(Duration.ofSeconds(10)))
+                .isInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void getAvailableDatesFromCalendar() {
+        List<LocalDate> calendarDates = List.of(START_DATE, END_DATE);
+        given(occupancyCalendar.getAvailableDates(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Optional.of(calendarDates));
+
+        List<LocalDate> availableList = getAvailableList();
+
+        assertThat(availableList).containsExactlyElementsOf(calendarDates);
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void getAvailableRanges() {
+        given(reservationRepository.getReservedRanges(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().items(new DateRange(START_DATE.plusDays(5), START_DATE.plusDays(6)),
+                        new DateRange(START_DATE, START_DATE.plusDays(1))));
+
+        List<DateRange> availableRanges = getAvailableRangeList();
+
+        assertThat(availableRanges).containsExactly(new DateRange(START_DATE.plusDays(2), START_DATE.plusDays(4)),
+                new DateRange(START_DATE.plusDays(7), END_DATE));
+    }
+
+    @Test
+    void getAvailableRangesWhenFullyReserved() {
+        given(reservationRepository.getReservedRanges(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().items(new DateRange(START_DATE, END_DATE)));
+
+        assertThat(getAvailableRangeList()).isEmpty();
+    }
+
+    @Test
+    void getAvailableRangesFromCalendar() {
+        List<DateRange> calendarRanges = List.of(new DateRange(START_DATE, END_DATE));
+        given(occupancyCalendar.getAvailableRanges(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Optional.of(calendarRanges));
+
+        List<DateRange> availableRanges = getAvailableRangeList();
+
+        assertThat(availableRanges).containsExactlyElementsOf(calendarRanges);
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void getFreeUnits() {
+        given(reservationRepository.getReservedDates(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().items(START_DATE));
+        given(reservationRepository.getReservedDates(ANOTHER_UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().items(START_DATE, START_DATE.plusDays(1)));
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(null)).willReturn(Uni.createFrom().voidItem());
+
+        List<AvailableDateResult> availableList = testInstance.getAvailableDates(null, START_DATE, END_DATE)
+                .collectItems().asList().await().indefinitely();
+
+        assertThat(availableList).hasSize(DateUtil.getContinuousDates(START_DATE, END_DATE).size() - 1);
+        assertThat(availableList.get(0).getDate()).isEqualTo(START_DATE.plusDays(1));
+        assertThat(availableList.get(0).getFreeUnits()).isEqualTo(1);
+        assertThat(availableList.get(1).getDate()).isEqualTo(START_DATE.plusDays(2));
+        assertThat(availableList.get(1).getFreeUnits()).isEqualTo(2);
+    }
+
+    @Test
+    void noFreeUnitsWithSingleUnit() {
+        InventoryConfiguration inventoryConfig = new InventoryConfiguration();
+        inventoryConfig.setUnits(List.of(UNIT_ID));
+        testInstance = new BookingQueryHandler(reservationRepository, bookingRules, occupancyCalendar,
+                calendarChangeFeed, inventoryConfig, new BookingMetrics(new MetricsRegistryImpl()));
+        given(reservationRepository.getReservedDates(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Multi.createFrom().items(START_DATE));
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(null)).willReturn(Uni.createFrom().voidItem());
+
+        List<AvailableDateResult> availableList = testInstance.getAvailableDates(null, START_DATE, END_DATE)
+                .collectItems().asList().await().indefinitely();
+
+        assertThat(availableList).hasSize(DateUtil.getContinuousDates(START_DATE, END_DATE).size() - 1);
+        assertThat(availableList).extracting(AvailableDateResult::getFreeUnits).containsOnlyNulls();
+    }
+
+    @Test
+    void getAnyUnitAvailableRanges() {
+        given(occupancyCalendar.getAvailableRanges(UNIT_ID, START_DATE, END_DATE))
+                .willReturn(Optional.of(
+                List.of(new DateRange(START_DATE, START_DATE.plusDays(2)))));
+        given(occupancyCalendar.getAvailableRanges(ANOTHER_UNIT_ID, START_DATE, END_DATE)).willReturn(Optional.of(
+                List.of(new DateRange(START_DATE.plusDays(3), START_DATE.plusDays(4)),
+                        new DateRange(START_DATE.plusDays(10), END_DATE))));
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(null)).willReturn(Uni.createFrom().voidItem());
+
+        List<DateRange> availableRanges = testInstance.getAvailableRanges(null, START_DATE, END_DATE)
+                .collectItems().asList().await().indefinitely().stream()
+                .map(range -> new DateRange(range.getFrom(), range.getTo()))
+                .collect(Collectors.toUnmodifiableList());
+
+        assertThat(availableRanges).containsExactly(new DateRange(START_DATE, START_DATE.plusDays(4)),
+                new DateRange(START_DATE.plusDays(10), END_DATE));
+    }
+
+    @Test
+    void getAvailableDatesBatch() {
+        LocalDate reservedDate = START_DATE.plusDays(1);
+        LocalDate lastWindowStart = START_DATE.plusDays(20);
+        LocalDate lastWindowEnd = START_DATE.plusDays(21);
+        given(bookingRules.validateBatchSpan(START_DATE, lastWindowEnd)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateQuery(START_DATE, START_DATE.plusDays(2))).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateQuery(lastWindowStart, lastWindowEnd)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(UNIT_ID)).willReturn(Uni.createFrom().voidItem());
+        given(reservationRepository.getReservedDates(UNIT_ID, START_DATE, lastWindowEnd))
+                .willReturn(Multi.createFrom().items(reservedDate));
+        ScheduleBatchQuery query = ScheduleBatchQuery.builder()
+                .unitId(UNIT_ID)
+                .windows(List.of(new ScheduleWindow(START_DATE, START_DATE.plusDays(2)),
+                        new ScheduleWindow(lastWindowStart, lastWindowEnd)))
+                .build();
+
+        List<ScheduleWindowResult> results = testInstance.getAvailableDates(query).await().indefinitely();
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).getDates()).extracting(AvailableDateResult::getDate)
+                .containsExactly(START_DATE, START_DATE.plusDays(2));
+        assertThat(results.get(1).getDates()).extracting(AvailableDateResult::getDate)
+                .containsExactly(lastWindowStart, lastWindowEnd);
+    }
+
+    @Test
+    void getAvailableDatesBatchWithInvalidWindow() {
+        given(bookingRules.validateBatchSpan(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateQuery(END_DATE, START_DATE))
+                .willReturn(Uni.createFrom().failure(new ReservationRequestException("invalid")));
+        ScheduleBatchQuery query = ScheduleBatchQuery.builder()
+                .windows(List.of(new ScheduleWindow(START_DATE, END_DATE), new ScheduleWindow(END_DATE, START_DATE)))
+                .build();
+
+        assertThatThrownBy(() -> testInstance.getAvailableDates(query).await().indefinitely())
+                .isInstanceOf(ReservationRequestException.class);
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void getAvailableDatesBatchWithWindowsTooFarApart() {
+        LocalDate farEndDate = LocalDate.of(9000, 1, 1);
+        given(bookingRules.validateBatchSpan(START_DATE, farEndDate))
+                .willReturn(Uni.createFrom().failure(new ReservationRequestException("too far apart")));
+        ScheduleBatchQuery query = ScheduleBatchQuery.builder()
+                .windows(List.of(new ScheduleWindow(START_DATE, START_DATE),
+                        new ScheduleWindow(farEndDate, farEndDate)))
+                .build();
+
+        assertThatThrownBy(() -> testInstance.getAvailableDates(query).await().indefinitely())
+                .isInstanceOf(ReservationRequestException.class);
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void getScheduleChanges() {
+        CalendarChange change = CalendarChange.builder()
+                .instanceTag("instance")
+                .version(2)
+                .unitId(UNIT_ID)
+                .booked(new DateRange(START_DATE, END_DATE))
+                .build();
+        given(calendarChangeFeed.getChanges("instance-1")).willReturn(Multi.createFrom().item(change));
+
+        ScheduleChangeResult result = testInstance.getScheduleChanges("instance-1").collectItems().first()
+                .await().indefinitely();
+
+        assertThat(result.getId()).isEqualTo("instance-2");
+        assertThat(result.isReset()).isFalse();
+        assertThat(result.getUnitId()).isEqualTo(UNIT_ID);
+        assertThat(result.getBooked().getFrom()).isEqualTo(START_DATE);
+        assertThat(result.getBooked().getTo()).isEqualTo(END_DATE);
+        assertThat(result.getReleased()).isNull();
+    }
+
+    private List<DateRange> getAvailableRangeList() {
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(UNIT_ID)).willReturn(Uni.createFrom().voidItem());
+        return testInstance.getAvailableRanges(UNIT_ID, START_DATE, END_DATE).collectItems()
+                .asList()
+                .await()
+                .indefinitely()
+                .stream()
+                .map(range -> new DateRange(range.getFrom(), range.getTo()))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
     private List<LocalDate> getAvailableList() {
-        return testInstance.getAvailableDates(START_DATE, END_DATE).collectItems()
+        given(bookingRules.validateQuery(START_DATE, END_DATE)).willReturn(Uni.createFrom().voidItem());
+        given(bookingRules.validateUnit(UNIT_ID)).willReturn(Uni.createFrom().voidItem());
+        return testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE).collectItems()
                 .asList()
                 .await()
                 .indefinitely()
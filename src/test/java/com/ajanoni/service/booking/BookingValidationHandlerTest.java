@@ -4,8 +4,10 @@ import static org.assertj.core.api.Assertions.assertThatNoException;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.ajanoni.exception.ReservationRequestException;
+import com.ajanoni.service.inventory.InventoryConfiguration;
 import io.smallrye.mutiny.Uni;
 import java.time.LocalDate;
+import java.util.List;
 import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,7 +21,9 @@ class BookingValidationHandlerTest {
 
     @BeforeEach
     void setup() {
-        testInstance = new BookingValidationHandler();
+        InventoryConfiguration inventoryConfig = new InventoryConfiguration();
+        inventoryConfig.setUnits(List.of("room-1", "room-2"));
+        testInstance = new BookingValidationHandler(inventoryConfig);
     }
 
     @Test
@@ -60,6 +64,25 @@ class BookingValidationHandlerTest {
         assertException(validation, "Maximum of 6 months between start date and end date allowed.");
     }
 
+    @Test
+    void batchSpanWithinMaximumSelection() {
+        LocalDate startDate = LocalDate.now();
+        LocalDate endDate = startDate.plusMonths(6).minusDays(1);
+
+        assertThatNoException().isThrownBy(() -> testInstance.validateBatchSpan(startDate, endDate)
+                .await().indefinitely());
+    }
+
+    @Test
+    void batchSpanCheckMaximumSelection() {
+        LocalDate startDate = LocalDate.now();
+        LocalDate farEndDate = LocalDate.of(9000, 1, 1);
+
+        Uni<Void> validation = testInstance.validateBatchSpan(startDate, farEndDate);
+
+        assertException(validation, "Maximum of 6 months between the first and the last window allowed.");
+    }
+
     @Test
     void validRequestDates() {
         LocalDate startDate = LocalDate.now().plusDays(1);
@@ -119,6 +142,23 @@ class BookingValidationHandlerTest {
         assertException(validation, "Maximum one month ahead allowed for arrival or departure date.");
     }
 
+    @Test
+    void knownUnit() {
+        assertThatNoException().isThrownBy(() -> testInstance.validateUnit("room-2").await().indefinitely());
+    }
+
+    @Test
+    void noUnitSelected() {
+        assertThatNoException().isThrownBy(() -> testInstance.validateUnit(null).await().indefinitely());
+    }
+
+    @Test
+    void unknownUnit() {
+        Uni<Void> validation = testInstance.validateUnit("room-3");
+
+        assertException(validation, "Unknown unit.");
+    }
+
     private void assertException(Uni<Void> validation, String message) {
         assertThatThrownBy(() -> validation.await().indefinitely())
                 .asInstanceOf(InstanceOfAssertFactories.type(ReservationRequestException.class))
@@ -0,0 +1,187 @@
+package com.ajanoni.service.calendar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+import com.ajanoni.common.DateRange;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import io.smallrye.mutiny.subscription.Cancellable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CalendarChangeFeedTest {
+
+    private static final String INSTANCE_TAG = "instance";
+    private static final int HISTORY_SIZE = 2;
+    private static final LocalDate DATE = LocalDate.of(2020, 1, 1);
+
+    @Mock
+    private OccupancyCalendar occupancyCalendar;
+
+    private CalendarChangeFeed testInstance;
+    private List<CalendarChange> received;
+    private List<Runnable> dispatches;
+
+    @BeforeEach
+    void setup() {
+        given(occupancyCalendar.getInstanceTag()).willReturn(INSTANCE_TAG);
+        CalendarConfiguration calendarConfig = new CalendarConfiguration();
+        calendarConfig.setFeedHistorySize(HISTORY_SIZE);
+        dispatches = new ArrayList<>();
+        testInstance = new CalendarChangeFeed(occupancyCalendar, calendarConfig, dispatches::add);
+        received = new ArrayList<>();
+    }
+
+    @Test
+    void receiveLiveChanges() {
+        subscribe(null);
+
+        testInstance.onChange(change(1));
+        testInstance.onChange(change(2));
+        dispatch();
+
+        assertThat(received).containsExactly(change(1), change(2));
+    }
+
+    @Test
+    void publishOutsideOfChange() {
+        subscribe(null);
+
+        testInstance.onChange(change(1));
+        testInstance.onChange(change(2));
+
+        assertThat(received).isEmpty();
+        assertThat(dispatches).hasSize(1);
+
+        dispatch();
+
+        assertThat(received).containsExactly(change(1), change(2));
+    }
+
+    @Test
+    void resetWhenChangesLeaveHistoryBeforePublishing() {
+        subscribe(null);
+
+        testInstance.onChange(change(1));
+        testInstance.onChange(change(2));
+        testInstance.onChange(change(3));
+        dispatch();
+
+        assertThat(received).containsExactly(reset(3));
+    }
+
+    @Test
+    void failSubscriberFallingBehindHistory() {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        testInstance.getChanges(null).subscribe().withSubscriber(new Subscriber<CalendarChange>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(CalendarChange change) {
+                received.add(change);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure.set(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        for (long version = 1; version <= HISTORY_SIZE + 2; version++) {
+            testInstance.onChange(change(version));
+            dispatch();
+        }
+
+        assertThat(received).containsExactly(change(1));
+        assertThat(failure.get()).isInstanceOf(BackPressureFailure.class);
+    }
+
+    @Test
+    void resumeFromLastChange() {
+        testInstance.onChange(change(1));
+        testInstance.onChange(change(2));
+
+        subscribe("instance-1");
+        testInstance.onChange(change(3));
+        dispatch();
+
+        assertThat(received).containsExactly(change(2), change(3));
+    }
+
+    @Test
+    void resetWhenChangesAreNoLongerInHistory() {
+        testInstance.onChange(change(1));
+        testInstance.onChange(change(2));
+        testInstance.onChange(change(3));
+
+        subscribe("instance-0");
+
+        assertThat(received).containsExactly(reset(3));
+    }
+
+    @Test
+    void resetWhenIdIsFromAnotherInstance() {
+        testInstance.onChange(change(1));
+
+        subscribe("other-1");
+
+        assertThat(received).containsExactly(reset(1));
+    }
+
+    @Test
+    void stopPublishingAfterCancel() {
+        Cancellable subscription = subscribe(null);
+
+        subscription.cancel();
+        testInstance.onChange(change(1));
+        dispatch();
+
+        assertThat(received).isEmpty();
+    }
+
+    private Cancellable subscribe(String lastChangeId) {
+        return testInstance.getChanges(lastChangeId).subscribe().with(received::add);
+    }
+
+    private void dispatch() {
+        List<Runnable> pending = new ArrayList<>(dispatches);
+        dispatches.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private CalendarChange change(long version) {
+        return CalendarChange.builder()
+                .instanceTag(INSTANCE_TAG)
+                .version(version)
+                .booked(new DateRange(DATE, DATE))
+                .build();
+    }
+
+    private CalendarChange reset(long version) {
+        return CalendarChange.builder()
+                .instanceTag(INSTANCE_TAG)
+                .version(version)
+                .reset(true)
+                .build();
+    }
+}
@@ -0,0 +1,189 @@
+package com.ajanoni.service.calendar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+
+import com.ajanoni.common.DateRange;
+import com.ajanoni.common.DateUtil;
+import com.ajanoni.repository.ReservationRepository;
+import com.ajanoni.service.inventory.InventoryConfiguration;
+import io.smallrye.mutiny.Multi;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.enterprise.event.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OccupancyCalendarTest {
+
+    private static final int HORIZON_DAYS = 30;
+    private static final LocalDate START_DATE = LocalDate.now();
+    private static final LocalDate END_DATE = START_DATE.plusDays(9);
+    private static final LocalDate RESERVED_DATE = START_DATE.plusDays(2);
+    private static final String UNIT_ID = "room-1";
+    private static final String ANOTHER_UNIT_ID = "room-2";
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private Event<CalendarChange> changeEvent;
+
+    private CalendarConfiguration calendarConfig;
+    private OccupancyCalendar testInstance;
+
+    @BeforeEach
+    void setup() {
+        calendarConfig = new CalendarConfiguration();
+        calendarConfig.setHorizonDays(HORIZON_DAYS);
+        InventoryConfiguration inventoryConfig = new InventoryConfiguration();
+        inventoryConfig.setUnits(List.of(UNIT_ID, ANOTHER_UNIT_ID));
+        testInstance = new OccupancyCalendar(reservationRepository, calendarConfig, inventoryConfig, changeEvent);
+    }
+
+    @Test
+    void notLoaded() {
+        assertThat(testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE)).isEmpty();
+    }
+
+    @Test
+    void notLoadedWhenNotSingleNode() {
+        calendarConfig.setSingleNode(false);
+
+        testInstance.reconcile();
+
+        assertThat(testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE)).isEmpty();
+        then(reservationRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void getAvailableDates() {
+        load(RESERVED_DATE);
+
+        Optional<List<LocalDate>> availableDates = testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE);
+
+        assertThat(availableDates).contains(expectedDates(RESERVED_DATE));
+    }
+
+    @Test
+    void getAvailableRanges() {
+        load(START_DATE, RESERVED_DATE, RESERVED_DATE.plusDays(1));
+
+        Optional<List<DateRange>> availableRanges = testInstance.getAvailableRanges(UNIT_ID, START_DATE, END_DATE);
+
+        assertThat(availableRanges).contains(List.of(new DateRange(START_DATE.plusDays(1), START_DATE.plusDays(1)),
+                new DateRange(RESERVED_DATE.plusDays(2), END_DATE)));
+    }
+
+    @Test
+    void windowOutsideHorizon() {
+        load();
+
+        assertThat(testInstance.getAvailableDates(UNIT_ID, START_DATE, START_DATE.plusDays(HORIZON_DAYS))).isEmpty();
+    }
+
+    @Test
+    void bookAndRelease() {
+        load();
+
+        testInstance.book(UNIT_ID, START_DATE.plusDays(1), START_DATE.plusDays(3));
+        testInstance.release(UNIT_ID, START_DATE.plusDays(1), START_DATE.plusDays(1));
+
+        assertThat(testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE))
+                .contains(expectedDates(START_DATE.plusDays(2), START_DATE.plusDays(3)));
+    }
+
+    @Test
+    void bookOnlyTheSelectedUnit() {
+        load();
+
+        testInstance.book(UNIT_ID, RESERVED_DATE, RESERVED_DATE);
+
+        assertThat(testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE))
+                .contains(expectedDates(RESERVED_DATE));
+        assertThat(testInstance.getAvailableDates(ANOTHER_UNIT_ID, START_DATE, END_DATE)).contains(expectedDates());
+    }
+
+    @Test
+    void unknownUnit() {
+        load();
+
+        assertThat(testInstance.getAvailableDates("room-3", START_DATE, END_DATE)).isEmpty();
+    }
+
+    @Test
+    void versionChangesOnWrite() {
+        load();
+        String versionTag = testInstance.getVersionTag();
+
+        testInstance.book(UNIT_ID, START_DATE, START_DATE);
+
+        assertThat(testInstance.getVersionTag()).isNotEqualTo(versionTag);
+    }
+
+    @Test
+    void changePublishedOnWrite() {
+        load();
+
+        testInstance.book(UNIT_ID, START_DATE, RESERVED_DATE);
+
+        then(changeEvent).should().fire(CalendarChange.builder()
+                .instanceTag(testInstance.getInstanceTag())
+                .version(testInstance.getVersion())
+                .unitId(UNIT_ID)
+                .booked(new DateRange(START_DATE, RESERVED_DATE))
+                .build());
+    }
+
+    @Test
+    void versionKeptWithoutDrift() {
+        load(RESERVED_DATE);
+        String versionTag = testInstance.getVersionTag();
+
+        testInstance.rebuild().await().indefinitely();
+
+        assertThat(testInstance.getVersionTag()).isEqualTo(versionTag);
+    }
+
+    @Test
+    void detectDrift() {
+        load();
+        given(reservationRepository.getReservedDates(eq(UNIT_ID), any(), any()))
+                .willReturn(Multi.createFrom().items(RESERVED_DATE));
+
+        boolean drift = testInstance.rebuild().await().indefinitely();
+
+        assertThat(drift).isTrue();
+        then(changeEvent).should().fire(CalendarChange.builder()
+                .instanceTag(testInstance.getInstanceTag())
+                .version(testInstance.getVersion())
+                .reset(true)
+                .build());
+        assertThat(testInstance.getAvailableDates(UNIT_ID, START_DATE, END_DATE))
+                .contains(expectedDates(RESERVED_DATE));
+    }
+
+    private void load(LocalDate... reservedDates) {
+        given(reservationRepository.getReservedDates(eq(UNIT_ID), any(), any()))
+                .willReturn(Multi.createFrom().items(reservedDates));
+        given(reservationRepository.getReservedDates(eq(ANOTHER_UNIT_ID), any(), any()))
+                .willReturn(Multi.createFrom().empty());
+        testInstance.rebuild().await().indefinitely();
+    }
+
+    private List<LocalDate> expectedDates(LocalDate... reservedDates) {
+        List<LocalDate> reserved = List.of(reservedDates);
+        return DateUtil.getContinuousDates(START_DATE, END_DATE).stream()
+                .filter(date -> !reserved.contains(date))
+                .collect(Collectors.toUnmodifiableList());
+    }
+}
@@ -7,6 +7,7 @@ import static org.mockito.Mockito.verify;
 import com.ajanoni.repository.CustomerRepository;
 import com.ajanoni.repository.model.Customer;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.SqlClient;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -24,29 +25,21 @@ class CustomerCommandHandlerTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private SqlClient sqlClient;
+
     @InjectMocks
     private CustomerCommandHandler testInstance;
 
     @Test
-    void updateOrCreateCustomerWhenExists() {
-        given(customerRepository.getByEmail(EMAIL)).willReturn(Uni.createFrom().item(getCustomer()));
-        mockUpdate();
-
-        String idReturned = testInstance.updateOrCreateCustomer(EMAIL, FULL_NAME_UPDATED).await().indefinitely();
-
-        assertThat(idReturned).isEqualTo(ID);
-    }
-
-    @Test
-    void updateOrCreateCustomerWhenNotExists() {
-        given(customerRepository.getByEmail(EMAIL)).willReturn(Uni.createFrom().nullItem());
+    void updateOrCreateCustomer() {
         Customer customer = Customer.builder()
                 .email(EMAIL)
                 .fullName(FULL_NAME)
                 .build();
-        given(customerRepository.save(customer)).willReturn(Uni.createFrom().item(ID));
+        given(customerRepository.upsert(sqlClient, customer)).willReturn(Uni.createFrom().item(ID));
 
-        String idReturned = testInstance.updateOrCreateCustomer(EMAIL, FULL_NAME).await().indefinitely();
+        String idReturned = testInstance.updateOrCreateCustomer(sqlClient, EMAIL, FULL_NAME).await().indefinitely();
 
         assertThat(idReturned).isEqualTo(ID);
     }
@@ -55,7 +48,7 @@ class CustomerCommandHandlerTest {
     void updateCustomer() {
         mockUpdate();
 
-        String idReturned = testInstance.updateCustomer(ID, EMAIL, FULL_NAME_UPDATED).await().indefinitely();
+        String idReturned = testInstance.updateCustomer(sqlClient, ID, EMAIL, FULL_NAME_UPDATED).await().indefinitely();
 
         assertThat(idReturned).isEqualTo(ID);
     }
@@ -66,7 +59,7 @@ class CustomerCommandHandlerTest {
                 .email(EMAIL)
                 .fullName(FULL_NAME_UPDATED)
                 .build();
-        given(customerRepository.update(updatedCustomer)).willReturn(Uni.createFrom().item(updatedCustomer));
+        given(customerRepository.update(sqlClient, updatedCustomer)).willReturn(Uni.createFrom().item(updatedCustomer));
     }
 
     private Customer getCustomer() {
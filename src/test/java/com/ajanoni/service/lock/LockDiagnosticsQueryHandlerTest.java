@@ -0,0 +1,69 @@
+package com.ajanoni.service.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.BDDMockito.given;
+
+import com.ajanoni.dto.HeldLockResult;
+import com.ajanoni.dto.LockCountResult;
+import com.ajanoni.dto.LockDiagnosticsResult;
+import com.ajanoni.lock.HeldLock;
+import com.ajanoni.lock.LockDiagnostics;
+import com.ajanoni.lock.LockHandler;
+import io.smallrye.mutiny.Uni;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LockDiagnosticsQueryHandlerTest {
+
+    private static final int LIMIT = 10;
+    private static final String OWN_NAME = "room-1:2020-01-01";
+    private static final String OTHER_NAME = "room-1:2020-01-02";
+    private static final long FENCE = 42;
+
+    @Mock
+    private LockHandler lockHandler;
+
+    @Mock
+    private LockDiagnostics lockDiagnostics;
+
+    private LockDiagnosticsQueryHandler testInstance;
+
+    @BeforeEach
+    void setup() {
+        testInstance = new LockDiagnosticsQueryHandler(lockHandler, lockDiagnostics);
+    }
+
+    @Test
+    void mergeHeldLocksWithOwnHoldings() {
+        given(lockHandler.getHeldLocks(LIMIT)).willReturn(Uni.createFrom().item(List.of(
+                new HeldLock(OTHER_NAME, Duration.ofMillis(700)),
+                new HeldLock(OWN_NAME, Duration.ofMillis(900)))));
+        given(lockDiagnostics.getWindow()).willReturn(Duration.ofMinutes(5));
+        given(lockDiagnostics.getHeld()).willReturn(Map.of(OWN_NAME,
+                new LockDiagnostics.HeldName(Duration.ofMillis(300), FENCE)));
+        given(lockDiagnostics.getTimeouts(LIMIT)).willReturn(List.of(new LockDiagnostics.NameCount(OTHER_NAME, 3)));
+        given(lockDiagnostics.getHottest(LIMIT)).willReturn(List.of(new LockDiagnostics.NameCount(OTHER_NAME, 8),
+                new LockDiagnostics.NameCount(OWN_NAME, 2)));
+
+        LockDiagnosticsResult result = testInstance.getDiagnostics(LIMIT).await().indefinitely();
+
+        assertThat(result.getWindowSeconds()).isEqualTo(300);
+        assertThat(result.getHeld()).extracting(HeldLockResult::getName, HeldLockResult::getLeaseRemainingMillis,
+                HeldLockResult::getHeldMillis, HeldLockResult::getFence)
+                .containsExactly(
+                        tuple(OWN_NAME, 900L, 300L, FENCE),
+                        tuple(OTHER_NAME, 700L, null, null));
+        assertThat(result.getTimeouts()).extracting(LockCountResult::getName, LockCountResult::getCount)
+                .containsExactly(tuple(OTHER_NAME, 3L));
+        assertThat(result.getHottest()).extracting(LockCountResult::getName)
+                .containsExactly(OTHER_NAME, OWN_NAME);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ajanoni.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSpanExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path spanFile;
+    private FileSpanExporter testInstance;
+
+    @BeforeEach
+    void setup() {
+        spanFile = tempDir.resolve("spans.jsonl");
+        TracingConfiguration tracingConfig = new TracingConfiguration();
+        tracingConfig.setExporter(TracingConfiguration.EXPORTER_FILE);
+        tracingConfig.setExportFile(spanFile.toString());
+        testInstance = new FileSpanExporter(tracingConfig);
+    }
+
+    @Test
+    void writeRootAndStageSpans() throws IOException {
+        StageTimings timings = StageTimings.start("booking.create");
+        timings.end(StageTimings.VALIDATE, timings.begin(), null);
+        timings.end(StageTimings.LOCK, timings.begin(), new IllegalStateException());
+        timings.finish(null);
+
+        testInstance.export(timings);
+        testInstance.close();
+
+        List<String> lines = Files.readAllLines(spanFile);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).contains("\"parentSpanId\":null", "\"name\":\"booking.create\"", "\"error\":null");
+        assertThat(lines.get(1)).contains("\"name\":\"validate\"", "\"error\":null");
+        assertThat(lines.get(2)).contains("\"name\":\"lock\"", "\"error\":\"IllegalStateException\"");
+
+        String traceId = lines.get(0).substring(0, lines.get(0).indexOf(",\"spanId\""));
+        assertThat(lines).allMatch(line -> line.startsWith(traceId));
+    }
+}
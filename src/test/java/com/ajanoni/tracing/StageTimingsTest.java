@@ -0,0 +1,57 @@
+package com.ajanoni.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+class StageTimingsTest {
+
+    private static final String NAME = "booking.create";
+
+    @Test
+    void recordStages() {
+        StageTimings timings = StageTimings.start(NAME);
+
+        timings.timed(StageTimings.VALIDATE, () -> Uni.createFrom().voidItem()).await().indefinitely();
+        long lockStartNanos = timings.begin();
+        timings.end(StageTimings.LOCK, lockStartNanos, null);
+
+        assertThat(timings.getStages()).extracting(StageTimings.Stage::name)
+                .containsExactly(StageTimings.VALIDATE, StageTimings.LOCK);
+        assertThat(timings.getStages()).allMatch(stage -> stage.durationNanos() >= 0 && stage.error() == null);
+    }
+
+    @Test
+    void recordFailedStage() {
+        StageTimings timings = StageTimings.start(NAME);
+
+        assertThatThrownBy(() -> timings.timed(StageTimings.INSERT,
+                () -> Uni.createFrom().failure(new IllegalStateException())).await().indefinitely())
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(timings.getStages()).extracting(StageTimings.Stage::error)
+                .containsExactly("IllegalStateException");
+    }
+
+    @Test
+    void formatServerTiming() {
+        StageTimings timings = StageTimings.start(NAME);
+        timings.end(StageTimings.CUSTOMER, timings.begin(), null);
+        timings.finish(null);
+
+        assertThat(timings.toServerTiming()).matches("customer;dur=\\d+\\.\\d{2}, total;dur=\\d+\\.\\d{2}");
+    }
+
+    @Test
+    void disabledRecordsNothing() {
+        StageTimings timings = StageTimings.disabled();
+
+        timings.timed(StageTimings.VALIDATE, () -> Uni.createFrom().voidItem()).await().indefinitely();
+        timings.end(StageTimings.LOCK, timings.begin(), null);
+
+        assertThat(timings.isEnabled()).isFalse();
+        assertThat(timings.getStages()).isEmpty();
+    }
+}
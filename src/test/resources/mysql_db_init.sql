@@ -1,21 +1,35 @@
 DROP TABLE IF EXISTS `customers`;
 CREATE TABLE `customers` (
-  `id` varchar(36) NOT NULL,
+  `id` binary(16) NOT NULL,
   `full_name` varchar(255) DEFAULT NULL,
   `email` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `UK_EMAIL` (`email`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 
 DROP TABLE IF EXISTS `reservations`;
 CREATE TABLE `reservations` (
-  `id` varchar(36) NOT NULL,
-  `customer_id` varchar(36) DEFAULT NULL,
+  `id` binary(16) NOT NULL,
+  `customer_id` binary(16) DEFAULT NULL,
+  `unit_id` varchar(36) NOT NULL,
   `arrival_date` datetime DEFAULT NULL,
   `departure_date` datetime DEFAULT NULL,
+  `fence` bigint DEFAULT NULL,
   PRIMARY KEY (`id`),
   KEY `FK_CUSTOMER_idx` (`customer_id`),
-  KEY `IDX_ARRIVAL` (`arrival_date`),
-  KEY `IDX_DEPARTURE` (`departure_date`),
+  KEY `IDX_UNIT_ARRIVAL` (`unit_id`, `arrival_date`),
+  KEY `IDX_UNIT_DEPARTURE` (`unit_id`, `departure_date`),
   CONSTRAINT `FK_CUSTOMER` FOREIGN KEY (`customer_id`) REFERENCES `customers` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+
+DROP TABLE IF EXISTS `reservation_nights`;
+CREATE TABLE `reservation_nights` (
+  `unit_id` varchar(36) NOT NULL,
+  `night` date NOT NULL,
+  `reservation_id` binary(16) NOT NULL,
+  PRIMARY KEY (`unit_id`, `night`),
+  KEY `IDX_RESERVATION` (`reservation_id`),
+  CONSTRAINT `FK_RESERVATION` FOREIGN KEY (`reservation_id`) REFERENCES `reservations` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;